@@ -1,9 +1,124 @@
+import java.awt.image.BufferedImage
+import javax.imageio.ImageIO
+
 plugins {
     id("com.android.application")
     id("com.google.gms.google-services") version "4.4.0"
 }
 
+/**
+ * src/main/sprites の PNG を1枚のアトラス画像 (assets/sprites/atlas.png) にまとめ、
+ * 各スプライトの領域を SpriteAtlasIndex.java として生成するタスク。
+ * 実行時は SpriteAtlas がアトラスを1回だけ読み込み、すべてのスプライトを同じテクスチャから描画する。
+ */
+abstract class PackSpriteAtlasTask : DefaultTask() {
+
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val spriteDir: DirectoryProperty
+
+    @get:Input
+    abstract val packageName: Property<String>
+
+    @get:OutputDirectory
+    abstract val assetsDir: DirectoryProperty
+
+    @get:OutputDirectory
+    abstract val javaDir: DirectoryProperty
+
+    private class Placement(val name: String, val image: BufferedImage) {
+        var x = 0
+        var y = 0
+    }
+
+    @TaskAction
+    fun pack() {
+        System.setProperty("java.awt.headless", "true")
+        val sprites = spriteDir.get().asFile.listFiles { f -> f.name.endsWith(".png") }.orEmpty()
+            .sortedBy { it.name }
+            .map { Placement(it.nameWithoutExtension, ImageIO.read(it)) }
+        require(sprites.isNotEmpty()) { "no sprites in ${spriteDir.get()}" }
+
+        // 高さの順に棚（行）へ並べる。周囲に PADDING の余白を取り、端の画素で埋めてフィルタリング時のにじみを防ぐ
+        val cell = { s: Placement -> (s.image.width + 2 * PADDING) * (s.image.height + 2 * PADDING) }
+        val maxWidth = sprites.maxOf { it.image.width + 2 * PADDING }
+        var width = Integer.highestOneBit(Math.sqrt(sprites.sumOf(cell).toDouble()).toInt().coerceAtLeast(1))
+        while (width < maxWidth) width *= 2
+
+        var x = 0
+        var y = 0
+        var shelfHeight = 0
+        for (s in sprites.sortedByDescending { it.image.height }) {
+            val w = s.image.width + 2 * PADDING
+            if (x + w > width) {
+                x = 0
+                y += shelfHeight
+                shelfHeight = 0
+            }
+            s.x = x + PADDING
+            s.y = y + PADDING
+            x += w
+            shelfHeight = maxOf(shelfHeight, s.image.height + 2 * PADDING)
+        }
+        val height = y + shelfHeight
+
+        val atlas = BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+        for (s in sprites) {
+            for (py in -PADDING until s.image.height + PADDING) {
+                for (px in -PADDING until s.image.width + PADDING) {
+                    val sx = px.coerceIn(0, s.image.width - 1)
+                    val sy = py.coerceIn(0, s.image.height - 1)
+                    atlas.setRGB(s.x + px, s.y + py, s.image.getRGB(sx, sy))
+                }
+            }
+        }
+
+        val assetsOut = assetsDir.get().asFile
+        assetsOut.deleteRecursively()
+        val atlasFile = assetsOut.resolve(ATLAS_ASSET_PATH)
+        atlasFile.parentFile.mkdirs()
+        ImageIO.write(atlas, "png", atlasFile)
 
+        val javaOut = javaDir.get().asFile
+        javaOut.deleteRecursively()
+        val pkg = packageName.get()
+        val indexFile = javaOut.resolve(pkg.replace('.', '/') + "/SpriteAtlasIndex.java")
+        indexFile.parentFile.mkdirs()
+        indexFile.writeText(buildString {
+            appendLine("package $pkg;")
+            appendLine()
+            appendLine("/**")
+            appendLine(" * スプライトアトラスの領域の一覧（packSpriteAtlas タスクが生成。編集しないこと）。")
+            appendLine(" */")
+            appendLine("public final class SpriteAtlasIndex {")
+            appendLine()
+            appendLine("    public static final String ASSET_PATH = \"$ATLAS_ASSET_PATH\";")
+            appendLine("    public static final int ATLAS_WIDTH = $width;")
+            appendLine("    public static final int ATLAS_HEIGHT = $height;")
+            appendLine()
+            sprites.forEachIndexed { i, s ->
+                appendLine("    public static final int ${s.name.uppercase()} = $i;")
+            }
+            appendLine("    public static final int COUNT = ${sprites.size};")
+            appendLine()
+            appendLine("    // 領域ごとに x, y, 幅, 高さ (px)")
+            appendLine("    static final int[] REGIONS = {")
+            for (s in sprites) {
+                appendLine("            ${s.x}, ${s.y}, ${s.image.width}, ${s.image.height},")
+            }
+            appendLine("    };")
+            appendLine()
+            appendLine("    private SpriteAtlasIndex() {")
+            appendLine("    }")
+            appendLine("}")
+        })
+    }
+
+    companion object {
+        const val PADDING = 2
+        const val ATLAS_ASSET_PATH = "sprites/atlas.png"
+    }
+}
 
 android {
     namespace = "com.example.acc_02"
@@ -35,12 +150,26 @@ android {
     }
 }
 
+androidComponents {
+    onVariants { variant ->
+        val packTask = tasks.register<PackSpriteAtlasTask>(
+            "pack${variant.name.replaceFirstChar { it.uppercase() }}SpriteAtlas"
+        ) {
+            spriteDir.set(layout.projectDirectory.dir("src/main/sprites"))
+            packageName.set(android.namespace)
+        }
+        variant.sources.assets?.addGeneratedSourceDirectory(packTask, PackSpriteAtlasTask::assetsDir)
+        variant.sources.java?.addGeneratedSourceDirectory(packTask, PackSpriteAtlasTask::javaDir)
+    }
+}
+
 dependencies {
     implementation(platform(libs.firebase.bom))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation(libs.firebase.analytics)
@@ -0,0 +1,127 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Process;
+import android.view.WindowManager;
+
+import com.example.acc_02.engine.AnalyticsBackend;
+import com.example.acc_02.engine.AnalyticsEvent;
+import com.example.acc_02.engine.AnalyticsPipeline;
+import com.example.acc_02.engine.SessionAggregator;
+import com.google.firebase.analytics.FirebaseAnalytics;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ゲームごとの分析データを集計し、ゲーム終了時に1件の要約イベントとして送信するクラス。
+ *
+ * プレイ中の記録（スコア、レベル、一時停止、フレーム時間）は SessionAggregator のフィールド更新だけで、
+ * イベントの組み立て（Bundle の作成）と FirebaseAnalytics.logEvent は専用のバックグラウンドスレッドで行う。
+ * 送信先を差し替えられるため、LocalAnalyticsBackend を渡せばネットワークなしで内容を確認できる。
+ * 記録のメソッドはUIスレッドから呼ぶこと。
+ */
+public class AnalyticsManager {
+
+    private final ExecutorService executor;
+    private final AnalyticsPipeline pipeline;
+    private final SessionAggregator session;
+
+    /**
+     * Firebase Analytics へ送信する。
+     */
+    public AnalyticsManager(Context context) {
+        this(context, new FirebaseBackend(context.getApplicationContext()));
+    }
+
+    public AnalyticsManager(Context context, AnalyticsBackend backend) {
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            r.run();
+        }, "Analytics"));
+        pipeline = new AnalyticsPipeline(executor, backend);
+
+        // vsync間隔の1.5倍を超えたフレームを遅いフレームとして数える（GameManager のフレーム落ちの判定と同じ）
+        float refreshRate = context.getSystemService(WindowManager.class).getDefaultDisplay().getRefreshRate();
+        long vsyncPeriodNanos = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60.0f));
+        session = new SessionAggregator(vsyncPeriodNanos * 3 / 2);
+    }
+
+    /**
+     * ゲームの開始時に呼ぶ。
+     * @param difficulty 選んだ難易度の名前
+     */
+    public void beginSession(String difficulty, int scoreMultiplier) {
+        session.begin(difficulty, scoreMultiplier, System.currentTimeMillis());
+    }
+
+    public void onScore(int addedScore, long elapsedMillis) {
+        session.onScore(addedScore, elapsedMillis);
+    }
+
+    public void onLevelUp(int level) {
+        session.onLevelReached(level);
+    }
+
+    public void onPause() {
+        session.onPause();
+    }
+
+    /**
+     * プレイ中のUIスレッドのフレーム間隔を記録する（QualityManager から呼ばれる）。
+     */
+    public void onFrame(long intervalNanos) {
+        session.onFrame(intervalNanos);
+    }
+
+    /**
+     * ゲームの終了時に呼び、要約イベントを送信キューに入れる。
+     * @param durationMillis プレイ時間（一時停止を含まない）
+     */
+    public void endSession(int score, long durationMillis) {
+        AnalyticsEvent event = session.finish(score, durationMillis, System.currentTimeMillis());
+        if (event != null) {
+            pipeline.log(event);
+        }
+    }
+
+    /**
+     * キューに残っているイベントを送信してからスレッドを終了する。MainActivityのonDestroyから呼ばれることを想定。
+     */
+    public void release() {
+        executor.shutdown();
+    }
+
+    /**
+     * Firebase Analytics への送信（送信スレッドで Bundle を作る）。
+     */
+    private static final class FirebaseBackend implements AnalyticsBackend {
+        private final Context context;
+        private FirebaseAnalytics analytics; // 送信スレッドのみ（最初の送信時に取得）
+
+        FirebaseBackend(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public void send(AnalyticsEvent event) {
+            if (analytics == null) {
+                analytics = FirebaseAnalytics.getInstance(context);
+            }
+            Bundle params = new Bundle();
+            for (Map.Entry<String, Object> entry : event.getParams().entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Long) {
+                    params.putLong(entry.getKey(), (Long) value);
+                } else if (value instanceof Double) {
+                    params.putDouble(entry.getKey(), (Double) value);
+                } else {
+                    params.putString(entry.getKey(), String.valueOf(value));
+                }
+            }
+            analytics.logEvent(event.getName(), params);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.acc_02;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * アトラス画像の一部の領域だけを表示する Drawable。
+ * 固有サイズは領域の大きさのため、ImageView の scaleType はそのまま使える。
+ */
+public class AtlasRegionDrawable extends Drawable {
+
+    private final Bitmap atlas;
+    private final Rect region;
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    AtlasRegionDrawable(Bitmap atlas, Rect region) {
+        this.atlas = atlas;
+        this.region = region;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        canvas.drawBitmap(atlas, region, getBounds(), paint);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return region.width();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return region.height();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (paint.getAlpha() != alpha) {
+            paint.setAlpha(alpha);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return paint.getAlpha();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        paint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.acc_02;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import android.util.Size;
+import android.util.SparseArray;
+
+import java.io.IOException;
+
+/**
+ * スプライトや背景の画像を、画面に表示する大きさで1回だけデコードして共有するキャッシュ。
+ *
+ * drawable/ の画像は密度の指定がないため、そのまま読み込むと端末の密度に合わせて拡大され、
+ * 表示サイズより何倍も大きなビットマップになる。このクラスは表示サイズに縮小してデコードし、
+ * 可能な場合はハードウェアビットマップ（GPUメモリ上に置かれ、Javaヒープを使わない）にする。
+ * 画像ごとに表示サイズは1つとし、リソースIDをキーにする。
+ *
+ * 使用する直前にデコードで止まらないよう、prefetch() でバックグラウンドスレッドで先にデコードできる。
+ * get() / prefetch() はどのスレッドからでも呼べる。
+ */
+public class BitmapCache {
+
+    private static final String TAG = "BitmapCache";
+
+    /** 表示領域への合わせ方 */
+    public enum Fit {
+        INSIDE, // 領域に収まる大きさ（fitCenter 相当）
+        COVER   // 領域を覆う大きさ（centerCrop 相当）
+    }
+
+    private final Resources resources;
+    private final SparseArray<Bitmap> bitmaps = new SparseArray<>();
+    private final HandlerThread decodeThread;
+    private final Handler decodeHandler;
+
+    public BitmapCache(Resources resources) {
+        this.resources = resources;
+        decodeThread = new HandlerThread("BitmapDecode", Process.THREAD_PRIORITY_BACKGROUND);
+        decodeThread.start();
+        decodeHandler = new Handler(decodeThread.getLooper());
+    }
+
+    /**
+     * 画像を取得する。キャッシュにない場合はこのスレッドでデコードする。
+     * @param width 表示領域の幅 (px)
+     * @param height 表示領域の高さ (px)
+     * @return デコードできなかった場合は null
+     */
+    public Bitmap get(int resId, int width, int height, Fit fit) {
+        synchronized (bitmaps) {
+            Bitmap cached = bitmaps.get(resId);
+            if (cached != null) return cached;
+        }
+
+        // デコードはロックの外で行う（同時に同じ画像を要求した場合は先に入れた方を使う）
+        Bitmap decoded = decode(resId, width, height, fit);
+        if (decoded == null) return null;
+        synchronized (bitmaps) {
+            Bitmap cached = bitmaps.get(resId);
+            if (cached != null) return cached;
+            bitmaps.put(resId, decoded);
+            return decoded;
+        }
+    }
+
+    /**
+     * 画像をバックグラウンドスレッドで先にデコードしておく。
+     */
+    public void prefetch(int resId, int width, int height, Fit fit) {
+        decodeHandler.post(() -> get(resId, width, height, fit));
+    }
+
+    /** キャッシュしている画像の数 */
+    public int size() {
+        synchronized (bitmaps) {
+            return bitmaps.size();
+        }
+    }
+
+    /**
+     * キャッシュしている画像の合計バイト数（ハードウェアビットマップはGPUメモリ上の大きさ）。
+     */
+    public long getByteCount() {
+        long total = 0;
+        synchronized (bitmaps) {
+            for (int i = 0; i < bitmaps.size(); i++) {
+                total += bitmaps.valueAt(i).getAllocationByteCount();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * キャッシュの使用量を追記する（デバッグ表示用）。
+     */
+    public void appendSummary(StringBuilder out) {
+        out.append("bitmaps ").append(size())
+                .append("  ").append(getByteCount() / 1024).append(" KB");
+    }
+
+    /**
+     * デコード用スレッドを終了する。MainActivityのonDestroyから呼ばれることを想定。
+     * ビットマップはビューが参照している可能性があるため recycle しない。
+     */
+    public void release() {
+        decodeThread.quitSafely();
+        synchronized (bitmaps) {
+            bitmaps.clear();
+        }
+    }
+
+    // =========================================================================================
+    // デコード
+    // =========================================================================================
+
+    private Bitmap decode(int resId, int width, int height, Fit fit) {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return decodeWithImageDecoder(resId, width, height, fit);
+            }
+            return decodeWithBitmapFactory(resId, width, height, fit);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to decode " + resources.getResourceEntryName(resId), e);
+            return null;
+        }
+    }
+
+    /**
+     * API 28以降: 表示サイズを指定してデコードする。割り当ては既定（可能ならハードウェア）のまま。
+     */
+    private Bitmap decodeWithImageDecoder(int resId, int width, int height, Fit fit) throws IOException {
+        ImageDecoder.Source source = ImageDecoder.createSource(resources, resId);
+        return ImageDecoder.decodeBitmap(source, (decoder, info, src) -> {
+            Size size = info.getSize();
+            float scale = scaleFor(size.getWidth(), size.getHeight(), width, height, fit);
+            decoder.setTargetSize(Math.max(1, Math.round(size.getWidth() * scale)),
+                    Math.max(1, Math.round(size.getHeight() * scale)));
+            decoder.setAllocator(ImageDecoder.ALLOCATOR_DEFAULT);
+        });
+    }
+
+    /**
+     * API 26/27: 2の累乗で間引いて読み込み、残りの縮小は密度の比率で行う。
+     */
+    private Bitmap decodeWithBitmapFactory(int resId, int width, int height, Fit fit) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false; // 密度による拡大を行わない元の大きさ
+        BitmapFactory.decodeResource(resources, resId, options);
+        final int sourceWidth = options.outWidth;
+        final int sourceHeight = options.outHeight;
+        if (sourceWidth <= 0 || sourceHeight <= 0) return null;
+
+        float scale = scaleFor(sourceWidth, sourceHeight, width, height, fit);
+        int sampleSize = 1;
+        while (sourceWidth * scale * sampleSize * 2 <= sourceWidth) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inScaled = true;
+        options.inDensity = sourceWidth / sampleSize;
+        options.inTargetDensity = Math.max(1, Math.round(sourceWidth * scale));
+        options.inPreferredConfig = Bitmap.Config.HARDWARE;
+        return BitmapFactory.decodeResource(resources, resId, options);
+    }
+
+    /**
+     * 画像を表示領域に合わせる縮小率（拡大はしない）。
+     */
+    private static float scaleFor(int sourceWidth, int sourceHeight, int width, int height, Fit fit) {
+        float scaleX = width / (float) sourceWidth;
+        float scaleY = height / (float) sourceHeight;
+        float scale = fit == Fit.INSIDE ? Math.min(scaleX, scaleY) : Math.max(scaleX, scaleY);
+        return Math.min(scale, 1.0f);
+    }
+}
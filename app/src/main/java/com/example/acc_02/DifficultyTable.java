@@ -0,0 +1,76 @@
+package com.example.acc_02;
+
+import com.example.acc_02.engine.Difficulty;
+import com.example.acc_02.engine.DifficultyProfile;
+import com.google.firebase.remoteconfig.FirebaseRemoteConfig;
+
+import java.util.Collection;
+
+/**
+ * 難易度ごとのパラメータ（DifficultyProfile）の表（変更しない）。
+ *
+ * Remote Config の値は有効化（activate）のたびに fromRemoteConfig() で1回だけ読み取って新しい表を作り、
+ * 表ごと差し替える。ゲーム開始時は表から取り出すだけで、Remote Config を参照しない。
+ * キーは "<難易度の key>_<項目>"（例: easy_spawn_chance）。
+ */
+public final class DifficultyTable {
+
+    // 項目のキー（難易度の key の後ろに付ける）
+    private static final String SPAWN_CHANCE = "_spawn_chance";
+    private static final String MULTIPLIER = "_multiplier";
+    private static final String RAIN_SPEED = "_rain_speed";
+    private static final String RAIN_SPEED_PER_LEVEL = "_rain_speed_per_level";
+    private static final String LEVEL_INTERVAL_SEC = "_level_interval_sec";
+    private static final String MAX_SPAWN_CHANCE = "_max_spawn_chance";
+    private static final String[] SUFFIXES = {
+            SPAWN_CHANCE, MULTIPLIER, RAIN_SPEED, RAIN_SPEED_PER_LEVEL, LEVEL_INTERVAL_SEC, MAX_SPAWN_CHANCE
+    };
+
+    /** Remote Config を読み取る前に使う表（remote_config_defaults.xml と同じ値） */
+    public static final DifficultyTable DEFAULTS = new DifficultyTable(new DifficultyProfile[] {
+            DifficultyProfile.of(1, 1),   // EASY
+            DifficultyProfile.of(5, 3),   // NORMAL
+            DifficultyProfile.of(10, 5),  // HARD
+    });
+
+    private final DifficultyProfile[] profiles; // [Difficulty の ordinal]
+
+    private DifficultyTable(DifficultyProfile[] profiles) {
+        this.profiles = profiles;
+    }
+
+    public DifficultyProfile get(Difficulty difficulty) {
+        return profiles[difficulty.ordinal()];
+    }
+
+    /**
+     * 有効化されている Remote Config の値から表を作る。値がない、または数値でない項目は DEFAULTS の値を使う。
+     */
+    public static DifficultyTable fromRemoteConfig(FirebaseRemoteConfig config) {
+        final Difficulty[] difficulties = Difficulty.values();
+        DifficultyProfile[] profiles = new DifficultyProfile[difficulties.length];
+        for (Difficulty d : difficulties) {
+            DifficultyProfile base = DEFAULTS.get(d);
+            profiles[d.ordinal()] = new DifficultyProfile(
+                    (int) RemoteConfigValues.getLong(config, d.key + SPAWN_CHANCE, base.spawnChance),
+                    (int) RemoteConfigValues.getLong(config, d.key + MULTIPLIER, base.scoreMultiplier),
+                    (float) RemoteConfigValues.getDouble(config, d.key + RAIN_SPEED, base.baseRainSpeed),
+                    (float) RemoteConfigValues.getDouble(config, d.key + RAIN_SPEED_PER_LEVEL, base.rainSpeedPerLevel),
+                    (int) RemoteConfigValues.getLong(config, d.key + LEVEL_INTERVAL_SEC, base.levelUpIntervalSec),
+                    (int) RemoteConfigValues.getLong(config, d.key + MAX_SPAWN_CHANCE, base.maxSpawnChance));
+        }
+        return new DifficultyTable(profiles);
+    }
+
+    /**
+     * 更新されたキーに難易度のパラメータが含まれるかどうか（リアルタイム更新で表を作り直すかの判定）。
+     */
+    public static boolean isAffectedBy(Collection<String> updatedKeys) {
+        for (Difficulty d : Difficulty.values()) {
+            for (String suffix : SUFFIXES) {
+                if (updatedKeys.contains(d.key + suffix)) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * 画面演出（スコアのフローティングテキスト「+N」、画面フラッシュ、レベルアップのバナー）を
+ * 1枚のビューにまとめて描画するクラス。
+ *
+ * 演出ごとにビューやアニメーターを生成せず、あらかじめ確保したスロットを使い回す。
+ * すべての演出は onDraw の1回のタイムライン更新で進み、演出が残っている間だけ次のフレームを要求する。
+ * 同じフレーム内に続いたスコア加算は1つのポップアップにまとめ、同時に表示する数には上限を設ける。
+ */
+public class EffectsView extends View {
+
+    // --- フローティングテキスト ---
+    private static final int MAX_POPUPS = 8;              // 同時に表示するポップアップの上限
+    private static final long POPUP_DURATION_MS = 800;
+    private static final float POPUP_RISE_PX = 100.0f;    // 表示中に上昇する距離
+    private static final float POPUP_TEXT_SIZE_SP = 20.0f;
+
+    // --- フラッシュ ---
+    private static final long FLASH_IN_MS = 100;
+    private static final long FLASH_OUT_MS = 300;
+    private static final float FLASH_MAX_ALPHA = 0.8f;
+    // 簡略化したフラッシュ（フェードインなしで、短く薄く消えるだけ）
+    private static final long FLASH_SIMPLE_MS = 150;
+    private static final float FLASH_SIMPLE_ALPHA = 0.4f;
+
+    // --- レベルアップのバナー ---
+    private static final long BANNER_DURATION_MS = 1000;
+    private static final long BANNER_POP_MS = 150;        // 拡大しながら現れる時間
+    private static final long BANNER_FADE_MS = 300;       // 最後にフェードアウトする時間
+    private static final float BANNER_TEXT_SIZE_SP = 40.0f;
+
+    // ポップアップのスロット（構造体の配列の代わりに、項目ごとの配列で保持する）
+    private final float[] popupX = new float[MAX_POPUPS];
+    private final float[] popupY = new float[MAX_POPUPS];
+    private final long[] popupStartMs = new long[MAX_POPUPS];
+    private final int[] popupValue = new int[MAX_POPUPS];
+    private final boolean[] popupActive = new boolean[MAX_POPUPS];
+    private int mergeTarget = -1; // 次の描画までに追加されたポップアップ（同じフレームの加算をまとめる）
+
+    private long flashStartMs = -1;
+    private boolean popupsEnabled = true; // false の間はポップアップを表示しない（品質段階による）
+    private boolean simpleFlash = false;  // true の間はフラッシュを簡略化する（品質段階による）
+    private long bannerStartMs = -1;
+    private String bannerText = "";
+
+    private final Paint popupPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bannerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint flashPaint = new Paint();
+    private final char[] popupChars = new char[12]; // "+" とintの最大桁数
+
+    public EffectsView(Context context) {
+        this(context, null);
+    }
+
+    public EffectsView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        int accentColor = getResources().getColor(R.color.colorAccentScore, context.getTheme());
+        int shadowColor = getResources().getColor(R.color.black, context.getTheme());
+
+        popupPaint.setColor(accentColor);
+        popupPaint.setTextSize(spToPx(POPUP_TEXT_SIZE_SP));
+        popupPaint.setShadowLayer(3.0f, 1.0f, 1.0f, shadowColor);
+
+        bannerPaint.setColor(accentColor);
+        bannerPaint.setTextSize(spToPx(BANNER_TEXT_SIZE_SP));
+        bannerPaint.setTextAlign(Paint.Align.CENTER);
+        bannerPaint.setFakeBoldText(true);
+        bannerPaint.setShadowLayer(4.0f, 2.0f, 2.0f, shadowColor);
+
+        flashPaint.setColor(Color.WHITE);
+    }
+
+    private float spToPx(float sp) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, getResources().getDisplayMetrics());
+    }
+
+    /**
+     * 指定位置（テキストの左上）に「+N」を表示する。前回の描画以降に追加済みのポップアップがあれば、その値に加算する。
+     * 上限に達している場合は最も古いポップアップを置き換える。
+     */
+    public void showScorePopup(int addedScore, float x, float y) {
+        if (!popupsEnabled) return;
+        if (mergeTarget >= 0 && popupActive[mergeTarget]) {
+            popupValue[mergeTarget] += addedScore;
+            return;
+        }
+
+        int slot = findPopupSlot();
+        popupX[slot] = x;
+        popupY[slot] = y - popupPaint.ascent(); // y はテキストの上端、描画はベースライン基準
+        popupStartMs[slot] = SystemClock.uptimeMillis();
+        popupValue[slot] = addedScore;
+        popupActive[slot] = true;
+        mergeTarget = slot;
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * 空きスロット、なければ最も古いスロットを返す。
+     */
+    private int findPopupSlot() {
+        int oldest = 0;
+        for (int i = 0; i < MAX_POPUPS; i++) {
+            if (!popupActive[i]) return i;
+            if (popupStartMs[i] < popupStartMs[oldest]) oldest = i;
+        }
+        return oldest;
+    }
+
+    /**
+     * スコアのポップアップの表示を切り替える。無効にしたときは表示中のポップアップも消す。
+     */
+    public void setPopupsEnabled(boolean enabled) {
+        if (popupsEnabled == enabled) return;
+        popupsEnabled = enabled;
+        if (!enabled) {
+            for (int i = 0; i < MAX_POPUPS; i++) {
+                popupActive[i] = false;
+            }
+            mergeTarget = -1;
+            invalidate();
+        }
+    }
+
+    /**
+     * フラッシュを簡略化する（全画面を塗るフレーム数と明るさを減らす）かどうかを設定する。
+     */
+    public void setSimpleFlash(boolean simple) {
+        simpleFlash = simple;
+    }
+
+    /**
+     * 画面全体を短時間フラッシュさせる（再生中の場合は最初からやり直す）。
+     */
+    public void flash() {
+        flashStartMs = SystemClock.uptimeMillis();
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * 画面中央にレベルアップのバナーを表示する。
+     */
+    public void showLevelBanner(int level) {
+        bannerText = "LEVEL UP! " + level;
+        bannerStartMs = SystemClock.uptimeMillis();
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * 表示中の演出をすべて消去する（ゲーム開始時など）。
+     */
+    public void clear() {
+        for (int i = 0; i < MAX_POPUPS; i++) {
+            popupActive[i] = false;
+        }
+        mergeTarget = -1;
+        flashStartMs = -1;
+        bannerStartMs = -1;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        // すべての演出をこの時刻を基準に1回だけ進める
+        final long now = SystemClock.uptimeMillis();
+        mergeTarget = -1;
+        boolean active = drawPopups(canvas, now);
+        active |= drawBanner(canvas, now);
+        active |= drawFlash(canvas, now);
+
+        if (active) {
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private boolean drawPopups(Canvas canvas, long now) {
+        boolean active = false;
+        for (int i = 0; i < MAX_POPUPS; i++) {
+            if (!popupActive[i]) continue;
+            long elapsed = now - popupStartMs[i];
+            if (elapsed >= POPUP_DURATION_MS) {
+                popupActive[i] = false;
+                continue;
+            }
+            active = true;
+
+            float t = easeInOut(elapsed / (float) POPUP_DURATION_MS);
+            popupPaint.setAlpha((int) (255 * (1.0f - t)));
+            int length = formatPopup(popupValue[i]);
+            canvas.drawText(popupChars, 0, length, popupX[i], popupY[i] - POPUP_RISE_PX * t, popupPaint);
+        }
+        return active;
+    }
+
+    private boolean drawBanner(Canvas canvas, long now) {
+        if (bannerStartMs < 0) return false;
+        long elapsed = now - bannerStartMs;
+        if (elapsed >= BANNER_DURATION_MS) {
+            bannerStartMs = -1;
+            return false;
+        }
+
+        float scale = elapsed < BANNER_POP_MS ? 0.6f + 0.4f * easeInOut(elapsed / (float) BANNER_POP_MS) : 1.0f;
+        long remaining = BANNER_DURATION_MS - elapsed;
+        float alpha = remaining < BANNER_FADE_MS ? remaining / (float) BANNER_FADE_MS : 1.0f;
+
+        float centerX = getWidth() / 2.0f;
+        float centerY = getHeight() / 3.0f;
+        bannerPaint.setAlpha((int) (255 * alpha));
+        canvas.save();
+        canvas.scale(scale, scale, centerX, centerY);
+        canvas.drawText(bannerText, centerX, centerY, bannerPaint);
+        canvas.restore();
+        return true;
+    }
+
+    private boolean drawFlash(Canvas canvas, long now) {
+        if (flashStartMs < 0) return false;
+        long elapsed = now - flashStartMs;
+        float alpha;
+        if (simpleFlash) {
+            if (elapsed >= FLASH_SIMPLE_MS) {
+                flashStartMs = -1;
+                return false;
+            }
+            alpha = FLASH_SIMPLE_ALPHA * (1.0f - elapsed / (float) FLASH_SIMPLE_MS);
+        } else if (elapsed < FLASH_IN_MS) {
+            alpha = FLASH_MAX_ALPHA * elapsed / FLASH_IN_MS;                               // フェードイン (一瞬明るく)
+        } else if (elapsed < FLASH_IN_MS + FLASH_OUT_MS) {
+            alpha = FLASH_MAX_ALPHA * (1.0f - (elapsed - FLASH_IN_MS) / (float) FLASH_OUT_MS); // フェードアウト
+        } else {
+            flashStartMs = -1;
+            return false;
+        }
+
+        flashPaint.setAlpha((int) (255 * alpha));
+        canvas.drawRect(0, 0, getWidth(), getHeight(), flashPaint);
+        return true;
+    }
+
+    /**
+     * 「+N」を popupChars に書き込み、文字数を返す（描画ごとの文字列生成を避ける）。
+     */
+    private int formatPopup(int value) {
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) digits++;
+        popupChars[0] = '+';
+        for (int i = digits; i >= 1; i--) {
+            popupChars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return digits + 1;
+    }
+
+    private static float easeInOut(float t) {
+        return (float) (1.0 - Math.cos(Math.PI * t)) / 2.0f;
+    }
+}
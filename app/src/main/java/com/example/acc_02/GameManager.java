@@ -1,186 +1,499 @@
 package com.example.acc_02;
 
 import android.content.Context;
+import android.os.Debug;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.FrameLayout;
+import android.view.WindowManager;
 import android.widget.ImageView;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Random;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import com.example.acc_02.engine.DifficultyProfile;
+import com.example.acc_02.engine.FrameMetrics;
+import com.example.acc_02.engine.GameClock;
+import com.example.acc_02.engine.GameEngine;
+import com.example.acc_02.engine.GameSnapshot;
+import com.example.acc_02.engine.RaindropPool;
+import com.example.acc_02.engine.ReplayPlayer;
+import com.example.acc_02.engine.ReplayRecorder;
+import com.example.acc_02.engine.SnapshotExchange;
+import com.example.acc_02.engine.TiltSlot;
 
 /**
- * ゲームロジックの中核を担うクラス。
- * ゲームループ、雨粒の生成/移動、衝突判定、難易度調整を行う。
+ * ゲームエンジン（GameEngine）をAndroidのビューとゲームループにつなぐアダプタ。
+ * ゲームのルール（レベル、生成/移動、衝突判定、スコア）は GameEngine が担当し、
+ * このクラスはループの駆動、スレッド間の受け渡し、描画とコールバック通知を行う。
+ *
+ * シミュレーションはメインスレッド、または専用のゲームスレッドで実行できる。
+ * どちらの場合も各フレームの結果は GameSnapshot として公開され、
+ * UIスレッドはそれを読み取って描画とコールバック通知を行う。
  */
 public class GameManager {
 
-    // ゲーム開始時のシステム時刻を保持
+    // ゲーム開始時のシステム時刻とシードを保持 (UIスレッド)
     private long gameStartTime;
-    private boolean isPaused = false;
-    private boolean isRunning = false; // ★追加: ゲームが実行中かどうか
+    private long gameSeed;
+
+    // --- 以下、シミュレーションスレッドのみが触る状態 ---
+    private boolean isRunning = false; // ★追加: ゲームループが実行中かどうか（一時停止の状態は GameStateMachine が持つ）
 
     // --- インターフェース ---
     public interface GameCallback {
         void onRaindropMissed(int addedScore);
         void onGameOver(int score);
-        void onUpdateLevelText(String text, int textSize, int textColor, float alpha);
+        void onLevelCountdown(int secondsToNextLevel); // 残り秒数が変わったときのみ呼ばれる
         void onLevelUp(int currentLevel);
+        void onReplayFailed(); // 記録したプレイを読み込めず、再生を始められなかったとき
     }
 
     private final Context context;
-    private final FrameLayout raindropContainer;
+    private final RaindropView raindropContainer;
     private final ViewGroup mainLayout;
     private final ImageView playerImage;
     private final GameCallback callback;
+    private ParallaxBackgroundView background; // ゲームの経過時間で流す背景（null の場合は流さない）
+
+    // --- ゲームエンジン ---
+    // エンジンの時刻は現在処理中のvsyncの時刻とする
+    private long frameTimeNanos = 0;
+    private final GameClock frameClock = () -> frameTimeNanos;
+    private final GameEngine engine = new GameEngine(frameClock, 0);
+    private int generation = 0; // 現在のゲームの世代番号
+
+    // --- フレーム計測（無効時は isEnabled() の判定のみ） ---
+    private static final String METRICS_TAG = "FrameMetrics";
+    private final FrameMetrics metrics = new FrameMetrics();
+    private final long vsyncPeriodNanos; // 画面のリフレッシュ間隔（フレーム落ちの判定に使用）
+    private long lastFrameTimeNanos = 0; // 前回のvsyncの時刻（シミュレーションスレッド）
+    private long gcCountBaseline = 0;    // 計測開始時のGC回数
+
+    // --- ゲームループ ---
+    // ゲームループはChoreographer（vsync）で駆動し、シミュレーションは固定ステップで進める
+    private final boolean useGameThread;
+    private HandlerThread gameThread;
+    private final Handler simHandler;
+    private Choreographer choreographer; // シミュレーションスレッドのChoreographer
+    private final Choreographer.FrameCallback frameCallback;
+
+    // --- スレッド間で共有する値 ---
+    // レイアウト変更時にキャッシュする寸法（フレームごとにビューへ問い合わせない）
+    private volatile int containerWidth = 0;
+    private volatile int layoutHeight = 0;
+    // プレイヤー画像のサイズ（UIスレッドが書き込み、2つのfloatを1つのlongに詰めて不整合を防ぐ）
+    private volatile long playerSize = 0;
+    // 最新の傾き（センサースレッドが書き込み、シミュレーションがステップごとに読み取る）
+    private final TiltSlot tiltInput = new TiltSlot();
+
+    // --- 入力の記録/再生（シミュレーションスレッド） ---
+    // 毎ゲームの入力を記録しておき、性能の回帰確認のために同じプレイを再生できるようにする
+    private static final String REPLAY_TAG = "Replay";
+    private static final int REPLAY_BUFFER_BYTES = 512 * 1024; // 1時間半程度のプレイが入る
+    private final ReplayRecorder replayRecorder = new ReplayRecorder(REPLAY_BUFFER_BYTES);
+    private ReplayPlayer replayPlayer = null; // 再生中のみ
+    private boolean isReplaying = false;      // UIスレッド用
+
+    // --- スナップショット（シミュレーション → UI） ---
+    private final SnapshotExchange snapshots = new SnapshotExchange(RaindropPool.DEFAULT_CAPACITY);
+
+    // --- 以下、UIスレッドのみが触る状態 ---
+    private final Choreographer uiChoreographer;
+    private final Choreographer.FrameCallback presentCallback;
+    private boolean isPresenting = false;
+    private int presentInterval = 1;  // 何vsyncごとに描画へ反映するか（品質段階による）
+    private int framesSincePresent = 0;
+    private int uiGeneration = 0;
+    private int presentedScore = 0;
+    private int presentedLevel = 1;
+    private int presentedSeconds = -1;
+    private long presentedElapsedNanos = 0;
+    private boolean gameOverDispatched = false;
+    private float shownPlayerX = Float.NaN;
+    private float shownPlayerY = Float.NaN;
+    private float shownPlayerRotation = Float.NaN;
+
+    // プレイヤー画像の傾き演出
+    private static final float MAX_ROTATION_DEGREE = 20.0f;
+    private static final float SENSOR_SENSITIVITY = 4.0f;
+
+    public GameManager(Context context, RaindropView raindropContainer, ViewGroup mainLayout, ImageView playerImage, GameCallback callback) {
+        this(context, raindropContainer, mainLayout, playerImage, callback, false);
+    }
 
-    // --- ゲーム状態変数 ---
-    private boolean isGameOver = false;
-    private int score = 0; // スコア変数はここに移動
-    private int scoreMultiplier = 1;
-    private final ArrayList<ImageView> raindrops = new ArrayList<>();
-    private final Random random = new Random();
-
-    // --- ゲームループ/ドロップ関連 ---
-    private final Handler gameHandler;
-    private final Runnable gameRunnable; // ★修正: 無名クラスの定義を削除し、Runnableオブジェクトとして宣言
-
-    // --- レベル/時間管理 ---
-    private long startTime;
-    private int currentLevel = 1;
-    private static final int LEVEL_UP_INTERVAL = 15000; // 15秒
-
-    // 一時停止/再開の時間管理用
-    private long pauseTime = 0; // 一時停止した時刻
-
-    // --- 難易度設定 ---
-    private int baseRainSpawnChance = 5; // 難易度選択で設定される初期値
-    private float currentRainSpeed = 20.0f;
-    private int currentRainSpawnChance = 5;
-
-    public GameManager(Context context, FrameLayout raindropContainer, ViewGroup mainLayout, ImageView playerImage, GameCallback callback) {
+    /**
+     * @param useGameThread true の場合、シミュレーションを専用のゲームスレッドで実行する
+     */
+    public GameManager(Context context, RaindropView raindropContainer, ViewGroup mainLayout, ImageView playerImage,
+                       GameCallback callback, boolean useGameThread) {
         this.context = context;
         this.raindropContainer = raindropContainer;
         this.mainLayout = mainLayout;
         this.playerImage = playerImage;
         this.callback = callback;
+        this.useGameThread = useGameThread;
+
+        this.frameCallback = this::runGameLoop;
+        this.engine.setMetrics(metrics);
+        // 傾きは記録用のReplayRecorderを通してエンジンへ渡す
+        this.replayRecorder.setSource(tiltInput);
+        this.engine.setTiltInput(replayRecorder);
+        float refreshRate = context.getSystemService(WindowManager.class).getDefaultDisplay().getRefreshRate();
+        this.vsyncPeriodNanos = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60.0f));
+        this.uiChoreographer = Choreographer.getInstance();
+        this.presentCallback = this::onPresentFrame;
+
+        if (useGameThread) {
+            gameThread = new HandlerThread("GameLoop", Process.THREAD_PRIORITY_DISPLAY);
+            gameThread.start();
+            simHandler = new Handler(gameThread.getLooper());
+            // Choreographerはスレッドごとのインスタンスのため、ゲームスレッド上で取得する
+            simHandler.post(() -> choreographer = Choreographer.getInstance());
+        } else {
+            simHandler = new Handler(Looper.getMainLooper());
+            choreographer = uiChoreographer;
+        }
 
-        this.gameHandler = new Handler(Looper.getMainLooper());
-        this.gameRunnable = this::runGameLoop; // ★修正: runGameLoop メソッドをRunnableとして設定
+        // 寸法はレイアウト変更時のみ更新する
+        containerWidth = raindropContainer.getWidth();
+        layoutHeight = mainLayout.getHeight();
+        playerSize = pack(playerImage.getWidth(), playerImage.getHeight());
+        raindropContainer.addOnLayoutChangeListener(this::onContainerLayoutChange);
+        mainLayout.addOnLayoutChangeListener(this::onContainerLayoutChange);
+        playerImage.addOnLayoutChangeListener(this::onContainerLayoutChange);
+    }
+
+    /**
+     * raindropContainer / mainLayout / playerImage のレイアウト変更時に寸法キャッシュを更新する。
+     */
+    private void onContainerLayoutChange(View v, int left, int top, int right, int bottom,
+                                         int oldLeft, int oldTop, int oldRight, int oldBottom) {
+        if (v == raindropContainer) {
+            containerWidth = right - left;
+        } else if (v == playerImage) {
+            playerSize = pack(right - left, bottom - top);
+        } else {
+            layoutHeight = bottom - top;
+        }
+    }
+
+    /**
+     * スナップショットを反映するたびにゲームの経過時間を渡す背景を設定する（UIスレッド）。
+     * 反映はプレイ中だけ行われるため、一時停止中やメニューでは背景も止まる。
+     */
+    public void setBackground(ParallaxBackgroundView background) {
+        this.background = background;
+    }
+
+    /**
+     * 傾きの受け渡し口。TiltInputManager が最新の傾きを書き込む。
+     */
+    public TiltSlot getTiltInput() {
+        return tiltInput;
+    }
+
+    /**
+     * シミュレーションスレッド上で処理を実行する（メインスレッド実行時はその場で実行）。
+     */
+    private void runOnSimThread(Runnable action) {
+        if (useGameThread) {
+            simHandler.post(action);
+        } else {
+            action.run();
+        }
     }
 
     /**
      * ゲームを開始し、状態変数を初期化する。
-     * @param initialSpawnChance 選択された難易度に基づく初期の雨の発生確率
-     * @param multiplier スコア倍率
+     * @param profile 選択された難易度のパラメータ
      */
-    public void startGame(int initialSpawnChance, int multiplier) {
-        this.scoreMultiplier = multiplier;
-        this.baseRainSpawnChance = initialSpawnChance;
+    public void startGame(DifficultyProfile profile) {
+        final long seed = System.nanoTime();
+        final int newGeneration = resetPresentation();
+        gameSeed = seed;
+        isReplaying = false;
+
+        runOnSimThread(() -> simStartGame(profile, seed, newGeneration));
+        startPresenting();
+    }
+
+    /**
+     * UI側の表示状態をリセットし、新しいゲームの世代番号を返す。
+     */
+    private int resetPresentation() {
+        gameStartTime = System.currentTimeMillis(); // ★追加: ゲーム開始時刻を記録 (Analytics用の実時刻)
+        presentedScore = 0;
+        presentedLevel = 1;
+        presentedSeconds = -1;
+        presentedElapsedNanos = 0;
+        gameOverDispatched = false;
+        shownPlayerX = Float.NaN;
+        shownPlayerY = Float.NaN;
+        shownPlayerRotation = Float.NaN;
+        raindropContainer.setRaindrops(null);
+        return ++uiGeneration;
+    }
+
+    private void simStartGame(DifficultyProfile profile, long seed, int newGeneration) {
+        replayPlayer = null;
+        engine.setTiltInput(replayRecorder);
+        // 寸法はまだレイアウトされていないことがあるため、ヘッダはループで寸法が揃ってから書き込まれる
+        replayRecorder.beginSession(seed, profile);
+        simBeginGame(profile, seed, newGeneration);
+    }
+
+    private void simBeginGame(DifficultyProfile profile, long seed, int newGeneration) {
+        this.generation = newGeneration;
+        engine.startGame(profile, seed);
+        engine.resetPlayerPosition(); // 最初のステップでフィールド中央に置く
 
-        isGameOver = false;
-        score = 0;
-        isPaused = false;   // ★修正: ゲーム開始時は一時停止状態ではない
         isRunning = true;   // ★追加: ゲーム開始時は実行中
 
-        // レベル/時間設定をリセット
-        currentRainSpeed = 20.0f;
-        currentRainSpawnChance = baseRainSpawnChance;
-        currentLevel = 1;
-        startTime = System.currentTimeMillis();
-        gameStartTime = System.currentTimeMillis(); // ★追加: ゲーム開始時刻を記録
+        scheduleLoop(); // ★ startGameLoop() を呼び出す代わりに直接スケジュール
+    }
 
-        raindropContainer.removeAllViews();
-        raindrops.clear();
+    /**
+     * 記録したプレイ（saveLastReplay で保存したファイル）を再生する。
+     * シード、難易度、画面の大きさ、ステップごとの傾きは記録時のものを使うため、
+     * 端末やビルドが違っても同じ展開になり、フレーム時間や最終スコアをそのまま比較できる。
+     */
+    public void startReplay(File file) {
+        final int newGeneration = resetPresentation();
+        isReplaying = true;
+
+        runOnSimThread(() -> simStartReplay(file, newGeneration));
+        startPresenting();
+    }
+
+    private void simStartReplay(File file, int newGeneration) {
+        ReplayPlayer player;
+        try {
+            player = new ReplayPlayer(Files.readAllBytes(file.toPath()));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(REPLAY_TAG, "Failed to load replay: " + file, e);
+            mainLayout.post(() -> onReplayLoadFailed(newGeneration));
+            return;
+        }
+        replayRecorder.endSession(-1); // 再生中の入力は記録しない
+        replayPlayer = player;
+        engine.setTiltInput(player);
+        simBeginGame(player.getProfile(), player.getSeed(), newGeneration);
+    }
+
+    /**
+     * 再生を始められなかった場合に、表示の開始を取り消して通知する（UIスレッド）。
+     */
+    private void onReplayLoadFailed(int failedGeneration) {
+        if (failedGeneration != uiGeneration) return; // すでに別のゲームが始まっている
+        isReplaying = false;
+        stopPresenting();
+        callback.onReplayFailed();
+    }
 
-        // levelInfoTextの表示をリセットさせるコールバック
-        callback.onUpdateLevelText("", 14, 0, 1.0f); // 初期表示クリア
+    /**
+     * 再生中かどうか（UIスレッド）。
+     */
+    public boolean isReplaying() {
+        return isReplaying;
+    }
 
-        gameHandler.post(gameRunnable); // ★ startGameLoop() を呼び出す代わりに直接post
+    /**
+     * 最後に記録したプレイをファイルへ保存する（ゲームオーバー後に呼ぶ）。
+     * 記録のコピーはシミュレーションスレッドで行い、書き込みはゲームスレッド実行時はそのままゲームスレッドで、
+     * メインスレッド実行時は専用のスレッドで行うため、UIスレッドを止めない。
+     * 一時ファイルに書き終えてから置き換えるため、途中で終了しても前回の記録が壊れた状態で残らない。
+     */
+    public void saveLastReplay(File file) {
+        runOnSimThread(() -> {
+            byte[] session = replayRecorder.copyLastSession();
+            if (session == null) return;
+            if (useGameThread) {
+                writeReplay(file, session);
+            } else {
+                Thread writer = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    writeReplay(file, session);
+                }, "ReplayWriter");
+                writer.start();
+            }
+        });
+    }
 
-        // 以前の startGameLoop() は重複するため削除
+    private static void writeReplay(File file, byte[] session) {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.e(REPLAY_TAG, "Failed to create " + dir);
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(session);
+                out.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Log.i(REPLAY_TAG, "Saved " + session.length + " bytes to " + file);
+        } catch (IOException e) {
+            Log.e(REPLAY_TAG, "Failed to save replay: " + file, e);
+            if (temp.exists() && !temp.delete()) {
+                Log.w(REPLAY_TAG, "Failed to delete " + temp);
+            }
+        }
     }
 
     /**
-     * ゲームループを再開する（onPauseからの復帰などに使用）。
-     * MainActivityのonResumeから呼ばれることを想定。
+     * ゲームループを再開する（一時停止やonPauseからの復帰に使用）。
+     * GameStateMachine が Playing 状態に入るときに呼ばれることを想定。
      */
     public void startGameLoop() {
-        // ★修正: isGameOver または isPaused の場合は再開しない。
-        // isRunning のチェックは、重複ポストを防ぐためにも維持する。
-        if (!isGameOver && !isPaused && !isRunning) { // ★ isPaused のチェックを追加
+        runOnSimThread(this::simStartGameLoop);
+        startPresenting();
+    }
+
+    private void simStartGameLoop() {
+        // ゲームオーバー後は再開しない。isRunning のチェックで重複ポストを防ぐ。
+        if (!engine.isGameOver() && !isRunning) {
             isRunning = true;
-            gameHandler.post(gameRunnable);
+            scheduleLoop();
         }
-        // isPaused が true の場合は、togglePauseGame() から呼ばれる resumeGame() で再開されるため、
-        // ここでは何もしない。（isRunning = true にしないことで、resumeGame() の再開条件を維持する）
     }
 
     /**
      * ゲームループを停止する。
      */
     public void stopGameLoop() {
-        isRunning = false;      // ★修正: 実行中ではない
-        isPaused = false;       // ★修正: 停止時は一時停止状態を解除
-        gameHandler.removeCallbacks(gameRunnable);
-        // 必要であれば、雨粒などもすべて削除
-        raindropContainer.removeAllViews();
-        raindrops.clear();
+        fullStop();
     }
 
     /**
-     * 現在のスコアを取得する。
+     * 現在のスコアを取得する（UIスレッドに反映済みの値）。
      */
     public int getScore() {
-        return score;
-    }
-
-    /**
-     * ゲームループで実行される主要な処理（雨生成、移動、衝突判定）。
-     */
-//    private void runGameLoop() {
-//        if (!isGameOver && !isPaused) { // ★修正: isPaused で一時停止をチェック
-//            updateLevelTimer();
-//            spawnRaindrop();
-//            moveRaindrops();
-//            checkCollisions();
-//            gameHandler.removeCallbacks(gameRunnable);
-//            gameHandler.postDelayed(gameRunnable, 16); // 約60FPS
-//        } else if (isPaused) {
-//            gameHandler.removeCallbacks(gameRunnable);
-//            gameHandler.postDelayed(gameRunnable, 16);
-//        }
-//
-//        // isGameOverの場合は、postDelayedしないので自然にループが止まる
-//    }
-
-    private void runGameLoop() {
-        if (isGameOver || isPaused) {
-            gameHandler.removeCallbacks(gameRunnable);
+        return presentedScore;
+    }
+
+    /**
+     * 次のvsyncからゲームループを開始する。停止していた時間はシミュレーションに含めない。
+     */
+    private void scheduleLoop() {
+        choreographer.removeFrameCallback(frameCallback); // 重複を防ぐ
+        engine.resyncClock();
+        lastFrameTimeNanos = 0;
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    /**
+     * vsyncごとに呼ばれ、経過時間分だけ固定ステップでシミュレーションを進める。
+     * @param frameTimeNanos フレームの開始時刻 (System.nanoTime基準)
+     */
+    private void runGameLoop(long frameTimeNanos) {
+        if (engine.isGameOver() || !isRunning) {
             return;
         }
+        // 最新の寸法をエンジンへ渡す（プレイヤーの位置はエンジン内で傾きから求める）
+        final ReplayPlayer replay = replayPlayer;
+        if (replay != null) {
+            // 再生中は記録時の寸法を使う
+            engine.setFieldSize(replay.getFieldWidth(), replay.getFieldHeight());
+            engine.setPlayerSize(replay.getPlayerWidth(), replay.getPlayerHeight());
+        } else {
+            final long size = playerSize;
+            final float width = containerWidth;
+            final float height = layoutHeight;
+            replayRecorder.setSizes(width, height, unpackFirst(size), unpackSecond(size));
+            if (replayRecorder.isWaitingForSizes()) {
+                // レイアウト前はシミュレーションを進めない（記録のヘッダに寸法が入るまで待つ）
+                engine.resyncClock();
+                choreographer.postFrameCallback(frameCallback);
+                return;
+            }
+            engine.setFieldSize(width, height);
+            engine.setPlayerSize(unpackFirst(size), unpackSecond(size));
+        }
 
-        // 以前の runGameLoop() のメインロジック...
-        updateLevelTimer();
-        spawnRaindrop();
-        moveRaindrops();
-        checkCollisions();
+        this.frameTimeNanos = frameTimeNanos;
+        if (metrics.isEnabled()) {
+            // vsync間隔の1.5倍を超えて空いた場合はフレーム落ちとみなす
+            if (lastFrameTimeNanos != 0) {
+                metrics.recordFrame(frameTimeNanos - lastFrameTimeNanos > vsyncPeriodNanos * 3 / 2);
+            }
+            long start = System.nanoTime();
+            engine.update();
+            metrics.lap(FrameMetrics.PHASE_UPDATE, start);
+            metrics.setActiveDrops(engine.getRaindrops().size());
+        } else {
+            engine.update();
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        // 記録はスナップショットの公開より先に閉じる（メインスレッド実行時は公開の中でゲームオーバーが通知され、
+        // saveLastReplay がその場で呼ばれるため）
+        if (engine.isGameOver() && replay == null) {
+            replayRecorder.endSession(engine.getScore());
+        }
+        // 結果をスナップショットとして公開する（ゲームオーバー時も最後の状態を公開する）
+        publishSnapshot();
+        if (engine.isGameOver()) {
+            if (replay != null) {
+                Log.i(REPLAY_TAG, "score=" + engine.getScore() + " (recorded " + replay.getRecordedScore() + ")"
+                        + " steps=" + replay.getStep() + " (recorded " + replay.getRecordedSteps() + ")");
+            }
+            // ★修正: ゲームオーバーなので fullStop を呼ぶ（衝突した雨粒もエンジン側で削除済み）
+            simFullStop();
+            return;
+        }
 
         // 次のフレームをスケジュール
-        gameHandler.postDelayed(gameRunnable, 16); // 約60FPS
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    /**
+     * 現在のシミュレーション状態をスナップショットに書き込み、UIスレッドへ公開する。
+     * メインスレッド実行時はそのまま反映まで行う。
+     */
+    private void publishSnapshot() {
+        GameSnapshot snapshot = snapshots.back();
+        engine.writeSnapshot(snapshot);
+        snapshot.generation = generation;
+        snapshots.publish();
+
+        if (!useGameThread && (++framesSincePresent >= presentInterval || snapshot.gameOver)) {
+            framesSincePresent = 0;
+            presentSnapshot();
+        }
     }
 
     /**
-     * ライフサイクル用：ゲームループを一時停止する（コールバックを削除するのみ）。
-     * MainActivityのonPauseから呼ばれることを想定。
+     * 描画への反映を何vsyncごとに行うかを設定する（UIスレッド）。
+     * シミュレーションは固定ステップのまま進み、間引いたフレームの結果は次の反映でまとめて通知される。
+     * @param interval 1 で毎vsync、2 で2vsyncに1回
+     */
+    public void setPresentInterval(int interval) {
+        presentInterval = Math.max(1, interval);
+    }
+
+    /**
+     * ゲームループを一時停止する（コールバックを削除するのみで、雨粒は残す）。
+     * GameStateMachine が Playing 状態を出るとき、またはonPauseで呼ばれることを想定。
      */
     public void pauseLoopOnly() {
+        stopPresenting();
+        runOnSimThread(this::simPauseLoopOnly);
+    }
+
+    private void simPauseLoopOnly() {
         isRunning = false;
-        // isPaused はここでは変更しない（MainActivityのフラグに依存）。
-        gameHandler.removeCallbacks(gameRunnable);
+        choreographer.removeFrameCallback(frameCallback);
     }
 
     /**
@@ -188,186 +501,225 @@ public class GameManager {
      * 既存の stopGameLoop() をこれに置き換えます。
      */
     public void fullStop() {
-        isRunning = false;
-        isPaused = false;
-        gameHandler.removeCallbacks(gameRunnable);
+        stopPresenting();
+        raindropContainer.setRaindrops(null);
+        runOnSimThread(this::simFullStop);
+    }
 
-        // ★重要: 雨粒もすべて削除する (ゲームオーバー処理)
-        raindropContainer.removeAllViews();
-        raindrops.clear();
+    private void simFullStop() {
+        isRunning = false;
+        choreographer.removeFrameCallback(frameCallback);
     }
 
     /**
-     * レベルアップまでのカウントダウンを更新し、レベルアップ処理を行う。
+     * 表示中のゲームで到達したレベル。
      */
-    private void updateLevelTimer() {
-        long elapsedTime = System.currentTimeMillis() - startTime;
-        int expectedLevel = (int) (elapsedTime / LEVEL_UP_INTERVAL) + 1;
-
-        // レベルアップ判定
-        if (expectedLevel > currentLevel) {
-            currentLevel = expectedLevel;
-            increaseDifficulty();
-            callback.onLevelUp(currentLevel);
-        }
-
-        // カウントダウンの計算と表示
-        long timeToNextLevelMs = LEVEL_UP_INTERVAL - (elapsedTime % LEVEL_UP_INTERVAL);
-        int timeToNextLevelSec = (int) Math.ceil(timeToNextLevelMs / 1000.0);
-
-        if (timeToNextLevelSec > 0) {
-            String text = "NEXT LEVEL: " + timeToNextLevelSec + "s";
-            // ★色とアルファ値の計算はMainActivityに委譲せず、GameManagerがデータを提供する形に修正
-            int color = context.getResources().getColor(android.R.color.white, context.getTheme());
-            float alpha = 1.0f;
-
-            // 残り5秒の点滅演出
-            if (timeToNextLevelSec <= 5) {
-                color = context.getResources().getColor(android.R.color.holo_red_light, context.getTheme());
-                alpha = timeToNextLevelSec % 2 == 0 ? 0.3f : 1.0f;
-            }
-            callback.onUpdateLevelText(text, 14, color, alpha);
-        }
+    public int getLevel() {
+        return presentedLevel;
     }
 
     /**
-     * 難易度レベルを上げ、雨粒の速度と発生頻度を増加させる。
+     * 表示中のゲームの経過時間（シミュレーション時間。一時停止していた時間は含まない）。
      */
-    private void increaseDifficulty() {
-        // 難易度パラメータ更新
-        currentRainSpeed += 1.0f;
-        if (currentRainSpawnChance < 30) {
-            currentRainSpawnChance += 1;
-        }
+    public long getElapsedMillis() {
+        return presentedElapsedNanos / 1_000_000L;
     }
 
     /**
-     * 一定の確率で画面上部に雨粒を生成する。
+     * startGame() で開始したゲームのシード。
      */
-    private void spawnRaindrop() {
-        if (random.nextInt(100) < currentRainSpawnChance) {
-            ImageView raindrop = new ImageView(context);
-            raindrop.setImageResource(R.drawable.ame);
-            raindrop.setLayoutParams(new ViewGroup.LayoutParams(50, 50));
-            raindropContainer.addView(raindrop);
+    public long getGameSeed() {
+        return gameSeed;
+    }
 
-            raindropContainer.post(() -> {
-                int screenWidth = raindropContainer.getWidth();
-                raindrop.setX(random.nextInt(screenWidth - 50));
-                raindrop.setY(0);
-            });
+    /**
+     * ゲーム開始時のシステム時刻を取得する (Analytics用)
+     */
+    public long getGameStartTime() {
+        return gameStartTime;
+    }
 
-            raindrops.add(raindrop);
+    /**
+     * ゲームスレッドを終了する。MainActivityのonDestroyから呼ばれることを想定。
+     */
+    public void release() {
+        stopPresenting();
+        if (gameThread != null) {
+            simHandler.post(this::simFullStop);
+            gameThread.quitSafely();
+            gameThread = null;
         }
     }
 
+    // =========================================================================================
+    // UIスレッド側の処理（スナップショットの反映とコールバック通知）
+    // =========================================================================================
+
     /**
-     * 生成されたすべての雨粒を下に移動させ、画面外に出たものを削除する。
+     * UIスレッドでのスナップショット反映を開始する（ゲームスレッド実行時のみ）。
      */
-    private void moveRaindrops() {
-        Iterator<ImageView> iterator = raindrops.iterator();
-        while (iterator.hasNext()) {
-            ImageView raindrop = iterator.next();
-            raindrop.setY(raindrop.getY() + currentRainSpeed);
+    private void startPresenting() {
+        if (!useGameThread || isPresenting) return;
+        isPresenting = true;
+        uiChoreographer.postFrameCallback(presentCallback);
+    }
 
-            if (raindrop.getY() > mainLayout.getHeight()) {
-                raindropContainer.removeView(raindrop);
-                iterator.remove();
+    private void stopPresenting() {
+        if (!useGameThread) return;
+        isPresenting = false;
+        uiChoreographer.removeFrameCallback(presentCallback);
+    }
 
-                final int addedScore = 1;
-                score += addedScore * scoreMultiplier;
-                callback.onRaindropMissed(addedScore * scoreMultiplier); // スコア通知
-            }
+    private void onPresentFrame(long frameTimeNanos) {
+        if (!isPresenting) return;
+        if (++framesSincePresent >= presentInterval) {
+            framesSincePresent = 0;
+            presentSnapshot();
+        }
+        if (isPresenting) {
+            uiChoreographer.postFrameCallback(presentCallback);
         }
     }
 
     /**
-     * プレイヤーと雨粒の衝突判定を行い、衝突した場合にゲームオーバー処理を行う。
+     * 最新のスナップショットを描画に反映し、前回との差分からコールバックを通知する。
      */
-    private void checkCollisions() {
-        if (isGameOver) return;
-
-        float playerX = playerImage.getX();
-        float playerY = playerImage.getY();
-        float playerWidth = playerImage.getWidth();
-        float playerHeight = playerImage.getHeight();
+    private void presentSnapshot() {
+        if (metrics.isEnabled()) {
+            long start = System.nanoTime();
+            dispatchSnapshot();
+            metrics.lap(FrameMetrics.PHASE_DISPATCH, start);
+        } else {
+            dispatchSnapshot();
+        }
+    }
 
-        final float COLLISION_FACTOR = 0.6f;
-        float collisionWidth = playerWidth * COLLISION_FACTOR;
-        float collisionHeight = playerHeight * COLLISION_FACTOR;
-        float collisionX = playerX + (playerWidth - collisionWidth) / 2.0f;
-        float collisionY = playerY + (playerHeight - collisionHeight) / 2.0f;
+    private void dispatchSnapshot() {
+        GameSnapshot snapshot = snapshots.acquire();
+        if (snapshot.generation != uiGeneration) return; // 以前のゲームの結果は無視する
+
+        raindropContainer.setRaindrops(snapshot.raindrops);
+        raindropContainer.setInterpolation(snapshot.interpolation);
+        raindropContainer.requestRender();
+        presentPlayer(snapshot);
+        presentedElapsedNanos = snapshot.elapsedNanos;
+        if (background != null) {
+            background.setGameTime(snapshot.elapsedNanos);
+        }
 
-        ImageView collidedRaindrop = null;
-        for (ImageView raindrop : raindrops) {
-            float rainX = raindrop.getX();
-            float rainY = raindrop.getY();
-            float rainWidth = raindrop.getWidth();
-            float rainHeight = raindrop.getHeight();
+        if (snapshot.score != presentedScore) {
+            int addedScore = snapshot.score - presentedScore;
+            presentedScore = snapshot.score;
+            callback.onRaindropMissed(addedScore); // スコア通知（同一フレーム内の加算はまとめて通知）
+        }
 
-            if (collisionX < rainX + rainWidth &&
-                    collisionX + collisionWidth > rainX &&
-                    collisionY < rainY + rainHeight &&
-                    collisionY + collisionHeight > rainY) {
+        if (snapshot.level > presentedLevel) {
+            presentedLevel = snapshot.level;
+            callback.onLevelUp(presentedLevel);
+        }
 
-                collidedRaindrop = raindrop;
-                break;
+        if (snapshot.gameOver) {
+            if (!gameOverDispatched) {
+                gameOverDispatched = true;
+                stopPresenting();
+                logMetrics();
+                callback.onGameOver(snapshot.score);
             }
+            return;
         }
 
-        if (collidedRaindrop != null) {
-            isGameOver = true;
-            // ★修正: ゲームオーバーなので fullStop を呼ぶ
-            fullStop();
+        if (snapshot.secondsToNextLevel != presentedSeconds) {
+            presentedSeconds = snapshot.secondsToNextLevel;
+            callback.onLevelCountdown(presentedSeconds);
+        }
+    }
 
-            raindropContainer.removeView(collidedRaindrop);
-            raindrops.remove(collidedRaindrop);
+    // =========================================================================================
+    // フレーム計測
+    // =========================================================================================
 
-            callback.onGameOver(score);
+    /**
+     * フェーズごとの処理時間とフレームのカウンタの計測を切り替える（UIスレッド）。
+     * 有効にしたときは以前の記録を消去する。
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled && !metrics.isEnabled()) {
+            gcCountBaseline = readGcCount();
         }
+        metrics.setEnabled(enabled);
+    }
+
+    public boolean isMetricsEnabled() {
+        return metrics.isEnabled();
     }
 
     /**
-     * ゲーム開始時のシステム時刻を取得する (Analytics用)
+     * 計測結果の要約を追記する（オーバーレイ表示用、UIスレッド）。
      */
-    public long getGameStartTime() {
-        return gameStartTime;
+    public void appendMetricsSummary(StringBuilder out) {
+        metrics.setGcCount(readGcCount() - gcCountBaseline);
+        metrics.appendSummary(out);
+    }
+
+    /**
+     * 計測が有効な場合、計測結果をlogcatへ出力する（ゲームオーバー時）。
+     */
+    private void logMetrics() {
+        if (!metrics.isEnabled()) return;
+        StringBuilder summary = new StringBuilder(512);
+        appendMetricsSummary(summary);
+        Log.i(METRICS_TAG, "score=" + presentedScore + " level=" + presentedLevel + "\n" + summary);
     }
 
     /**
-     * ゲームを一時停止する
+     * プロセス起動からのGC回数（取得できない場合は0）。
      */
-    public void pauseGame() {
-        if (isRunning && !isPaused) {
-            isPaused = true;
-            pauseTime = System.currentTimeMillis();
-            gameHandler.removeCallbacks(gameRunnable); // 明示的にループを停止
+    private static long readGcCount() {
+        String count = Debug.getRuntimeStat("art.gc.gc-count");
+        if (count == null) return 0;
+        try {
+            return Long.parseLong(count);
+        } catch (NumberFormatException e) {
+            return 0;
         }
     }
 
     /**
-     * ゲームを再開する
+     * シミュレーションが求めたプレイヤーの位置をプレイヤー画像に反映する（値が変わったときのみ）。
      */
-    public void resumeGame() {
-        // if (isRunning && isPaused) { // <-- 変更前
-        if (isPaused) { // ★修正: isRunningのチェックを削除
-            isPaused = false;
+    private void presentPlayer(GameSnapshot snapshot) {
+        if (!snapshot.playerPlaced) return;
+
+        final float alpha = snapshot.interpolation;
+        float x = snapshot.prevPlayerX + (snapshot.playerX - snapshot.prevPlayerX) * alpha;
+        float y = snapshot.prevPlayerY + (snapshot.playerY - snapshot.prevPlayerY) * alpha;
+        if (x != shownPlayerX) {
+            shownPlayerX = x;
+            playerImage.setX(x);
+        }
+        if (y != shownPlayerY) {
+            shownPlayerY = y;
+            playerImage.setY(y);
+        }
 
-            // タイマー調整ロジックを追加
-            if (pauseTime > 0) {
-                long elapsedTime = System.currentTimeMillis() - pauseTime;
-                startTime += elapsedTime; // 基準時刻を「遅らせる」ことで、一時停止時間を無視する
-                pauseTime = 0;
-            }
+        // 傾きに応じてキャラクターを回転させる
+        float rotationDegree = -(snapshot.playerTiltX / SENSOR_SENSITIVITY) * MAX_ROTATION_DEGREE;
+        rotationDegree = Math.max(-MAX_ROTATION_DEGREE, Math.min(MAX_ROTATION_DEGREE, rotationDegree));
+        if (rotationDegree != shownPlayerRotation) {
+            shownPlayerRotation = rotationDegree;
+            playerImage.setRotation(rotationDegree);
+        }
+    }
 
-            // isRunning = true に設定する必要があるか？
-            // -> gameHandler.post(gameRunnable); でループが再開されれば、
-            //    startGameLoop() の if 文に引っかからなくなるため、不要か、
-            //    あるいは明示的に true に設定しても良い。
-            isRunning = true; // ★追加: 明示的に true に設定することで、状態を一致させる
+    private static long pack(float first, float second) {
+        return ((long) Float.floatToRawIntBits(first) << 32) | (Float.floatToRawIntBits(second) & 0xFFFFFFFFL);
+    }
 
-            gameHandler.removeCallbacks(gameRunnable);  //重複を防ぐ
-            gameHandler.post(gameRunnable); // ゲームループを再開
-        }
+    private static float unpackFirst(long packed) {
+        return Float.intBitsToFloat((int) (packed >>> 32));
+    }
+
+    private static float unpackSecond(long packed) {
+        return Float.intBitsToFloat((int) packed);
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.example.acc_02;
+
+/**
+ * 画面（ゲーム）の状態。
+ * 状態ごとに、傾きセンサーとゲームループを動かすかどうか、どのBGMを流すかが決まる。
+ */
+public enum GameState {
+    MENU,       // 難易度選択画面
+    TUTORIAL,
+    PLAYING,
+    PAUSED,
+    GAME_OVER,
+    SETTINGS,
+    STATS;      // プレイの記録の統計画面
+
+    /**
+     * この状態から next へ遷移できるかどうか。
+     */
+    public boolean canTransitionTo(GameState next) {
+        switch (this) {
+            case MENU:
+                return next == PLAYING || next == SETTINGS || next == TUTORIAL || next == STATS;
+            case TUTORIAL:
+            case SETTINGS:
+            case STATS:
+                return next == MENU;
+            case PLAYING:
+                // MENU へは、記録したプレイを読み込めず再生が始まらなかったときだけ戻る
+                return next == PAUSED || next == GAME_OVER || next == MENU;
+            case PAUSED:
+                return next == PLAYING || next == MENU;
+            case GAME_OVER:
+                return next == PLAYING || next == MENU;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.acc_02;
+
+import android.util.Log;
+
+/**
+ * ゲームの状態（GameState）と、状態に応じたリソースの有効/無効を管理するクラス。
+ *
+ * 傾きセンサーの登録、ゲームループとフレーム時間の計測の開始/停止、BGMの切り替えは、すべて状態の遷移とライフサイクルの
+ * 変化からのみ行う。センサーとゲームループが動くのは、Playing 状態かつアクティビティが前面にある間だけ。
+ * 画面の表示の切り替えは MainActivity が行う。
+ */
+public class GameStateMachine {
+
+    private static final String TAG = "GameStateMachine";
+
+    private final GameManager gameManager;
+    private final MediaManager mediaManager;
+    private final TiltInputManager tiltInputManager;
+    private final QualityManager qualityManager;
+
+    private GameState state;
+    private boolean isForeground = false; // onResume〜onPause の間か
+
+    public GameStateMachine(GameState initialState, GameManager gameManager, MediaManager mediaManager,
+                            TiltInputManager tiltInputManager, QualityManager qualityManager) {
+        this.state = initialState;
+        this.gameManager = gameManager;
+        this.mediaManager = mediaManager;
+        this.tiltInputManager = tiltInputManager;
+        this.qualityManager = qualityManager;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * 状態を遷移させ、新しい状態に合わせてセンサー、ゲームループ、BGMを切り替える。
+     * 許可されていない遷移の場合は何もしない。
+     * @return 遷移した場合は true
+     */
+    public boolean transitionTo(GameState next) {
+        if (!state.canTransitionTo(next)) {
+            Log.w(TAG, "Ignored transition " + state + " -> " + next);
+            return false;
+        }
+        GameState previous = state;
+        state = next;
+
+        if ((previous == GameState.PAUSED || previous == GameState.PLAYING) && next == GameState.MENU) {
+            // 一時停止中（または始まらなかった）ゲームを終了してメニューへ戻る
+            gameManager.fullStop();
+        }
+        if (isForeground) {
+            applyInput();
+            if (bgmFor(previous) != bgmFor(next)) {
+                applyBgm(); // メニュー系の画面どうしの移動ではメニューBGMを最初から流し直さない
+            }
+        }
+        return true;
+    }
+
+    /**
+     * MainActivityのonResumeから呼ばれることを想定。現在の状態に必要なものだけを再開する。
+     */
+    public void onResume() {
+        isForeground = true;
+        applyInput();
+        applyBgm();
+        mediaManager.onResume();
+    }
+
+    /**
+     * MainActivityのonPauseから呼ばれることを想定。センサーとゲームループを止め、BGMを一時停止する。
+     * 状態は変えないため、復帰時はonPause前の状態から再開する。
+     */
+    public void onPause() {
+        isForeground = false;
+        tiltInputManager.stop();
+        qualityManager.stop();
+        if (state == GameState.PLAYING) {
+            gameManager.pauseLoopOnly(); // 雨粒は消さない
+        }
+        mediaManager.onPause();
+    }
+
+    /**
+     * 傾きセンサー、ゲームループ、フレーム時間の計測を、Playing 状態のときだけ動かす。
+     */
+    private void applyInput() {
+        if (state == GameState.PLAYING) {
+            tiltInputManager.start();
+            gameManager.startGameLoop(); // ゲーム開始直後やループ実行中の場合は何もしない
+            qualityManager.start();
+        } else {
+            tiltInputManager.stop();
+            qualityManager.stop();
+            if (state == GameState.PAUSED) {
+                gameManager.pauseLoopOnly();
+            }
+            // GameOver ではループはエンジン側で停止済み
+        }
+    }
+
+    private void applyBgm() {
+        MediaManager.Bgm bgm = bgmFor(state);
+        if (bgm != null) {
+            mediaManager.startBGM(bgm);
+        } else {
+            mediaManager.pauseBGM(); // 一時停止中は再生位置を保ったまま止める
+        }
+    }
+
+    private static MediaManager.Bgm bgmFor(GameState s) {
+        switch (s) {
+            case MENU:
+            case TUTORIAL:
+            case SETTINGS:
+            case STATS:
+                return MediaManager.Bgm.MENU;
+            case PLAYING:
+                return MediaManager.Bgm.GAME;
+            case GAME_OVER:
+                return MediaManager.Bgm.GAME_OVER;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.widget.TextView;
+
+import com.example.acc_02.engine.DifficultyProfile;
+
+/**
+ * ゲーム中のHUD（スコアとレベルアップまでのカウントダウン）の表示を管理するクラス。
+ *
+ * 色は生成時に1回だけ解決し、カウントダウンの文字列は事前に生成しておく。
+ * 表示中の値を保持し、値が変わったときだけビューを更新する。
+ * テキストビューは高さ固定・1行のため setText で再レイアウトは発生しない。
+ * レベルアップのバナーは EffectsView が描画する。
+ */
+public class HudManager {
+
+    private static final String SCORE_PREFIX = "Score: ";
+    private static final int COUNTDOWN_BLINK_SEC = 5;  // 残り何秒から点滅させるか
+    private static final float BLINK_ALPHA = 0.3f;
+    private static final float SCORE_PULSE_SCALE = 1.2f;
+    private static final int SCORE_PULSE_DURATION = 200;
+
+    private final TextView scoreText;
+    private final TextView levelInfoText;
+
+    // --- 解決済みの色 ---
+    private final int normalColor;
+    private final int warningColor;
+    private final int accentColor;
+
+    // --- 事前に生成した文字列 ---
+    private final String[] countdownTexts = new String[DifficultyProfile.MAX_LEVEL_UP_INTERVAL_SEC + 1];
+    private final char[] scoreChars = new char[SCORE_PREFIX.length() + 10]; // 接頭辞 + intの最大桁数
+
+    // --- 表示中の値（変化検出用） ---
+    private int shownScore = -1;
+    private int shownSeconds = -1;
+    private int shownColor = 0;
+    private float shownAlpha = 1.0f;
+
+    public HudManager(Context context, TextView scoreText, TextView levelInfoText) {
+        this.scoreText = scoreText;
+        this.levelInfoText = levelInfoText;
+
+        this.normalColor = context.getResources().getColor(android.R.color.white, context.getTheme());
+        this.warningColor = context.getResources().getColor(android.R.color.holo_red_light, context.getTheme());
+        this.accentColor = context.getResources().getColor(R.color.colorAccentScore, context.getTheme());
+
+        for (int sec = 1; sec < countdownTexts.length; sec++) {
+            countdownTexts[sec] = "NEXT LEVEL: " + sec + "s";
+        }
+        SCORE_PREFIX.getChars(0, SCORE_PREFIX.length(), scoreChars, 0);
+    }
+
+    /**
+     * ゲーム開始時に表示を初期化する。
+     */
+    public void reset() {
+        levelInfoText.setText("");
+        setLevelInfoStyle(normalColor, 1.0f);
+        shownSeconds = -1;
+        shownScore = -1;
+        showScore(0);
+    }
+
+    /**
+     * スコア（0以上）を表示する。前回と同じ値の場合は何もしない。
+     */
+    public void showScore(int score) {
+        if (score == shownScore) return;
+        shownScore = score;
+
+        // "Score: " の後ろに数字を書き込む（文字列の連結を行わない）
+        int length = SCORE_PREFIX.length();
+        int digitsEnd = length + digitCount(score);
+        for (int i = digitsEnd - 1; i >= length; i--) {
+            scoreChars[i] = (char) ('0' + score % 10);
+            score /= 10;
+        }
+        scoreText.setText(scoreChars, 0, digitsEnd);
+    }
+
+    /**
+     * スコア加算時にスコア表示を拡大し、一瞬アクセント色にする。
+     */
+    public void pulseScore() {
+        scoreText.animate()
+                .scaleX(SCORE_PULSE_SCALE)
+                .scaleY(SCORE_PULSE_SCALE)
+                .setDuration(SCORE_PULSE_DURATION)
+                .withStartAction(() -> scoreText.setTextColor(accentColor))
+                .withEndAction(() -> {
+                    scoreText.animate()
+                            .scaleX(1.0f)
+                            .scaleY(1.0f)
+                            .setDuration(SCORE_PULSE_DURATION)
+                            .start();
+                    scoreText.setTextColor(normalColor);
+                })
+                .start();
+    }
+
+    /**
+     * レベルアップまでの残り秒数を表示する。前回と同じ値の場合は何もしない。
+     * 残り5秒からは赤色で点滅させる。
+     */
+    public void showCountdown(int secondsToNextLevel) {
+        if (secondsToNextLevel == shownSeconds) return;
+        shownSeconds = secondsToNextLevel;
+        if (secondsToNextLevel <= 0) return;
+
+        int index = Math.min(secondsToNextLevel, countdownTexts.length - 1);
+        levelInfoText.setText(countdownTexts[index]);
+
+        if (secondsToNextLevel <= COUNTDOWN_BLINK_SEC) {
+            setLevelInfoStyle(warningColor, secondsToNextLevel % 2 == 0 ? BLINK_ALPHA : 1.0f);
+        } else {
+            setLevelInfoStyle(normalColor, 1.0f);
+        }
+    }
+
+    private void setLevelInfoStyle(int color, float alpha) {
+        if (color != shownColor) {
+            shownColor = color;
+            levelInfoText.setTextColor(color);
+        }
+        if (alpha != shownAlpha) {
+            shownAlpha = alpha;
+            levelInfoText.setAlpha(alpha);
+        }
+    }
+
+    private static int digitCount(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -1,15 +1,13 @@
 package com.example.acc_02;
 
 import android.content.pm.ActivityInfo;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
-import android.media.MediaPlayer;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Vibrator;
+import android.util.DisplayMetrics;
+import android.graphics.drawable.Drawable;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
@@ -26,65 +24,99 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.text.Html;
 
 import com.example.acc_02.GameManager.GameCallback;
+import com.example.acc_02.engine.Difficulty;
+import com.example.acc_02.engine.DifficultyProfile;
+import com.example.acc_02.engine.QualityGovernor;
+import com.example.acc_02.engine.RunHistory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
 
-import java.util.List;
 import android.util.Log;
 
 import com.google.firebase.BuildConfig;
-import com.google.firebase.analytics.FirebaseAnalytics;
+import com.google.firebase.remoteconfig.ConfigUpdate;
+import com.google.firebase.remoteconfig.ConfigUpdateListener;
+import com.google.firebase.remoteconfig.ConfigUpdateListenerRegistration;
 import com.google.firebase.remoteconfig.FirebaseRemoteConfig;
+import com.google.firebase.remoteconfig.FirebaseRemoteConfigException;
 import com.google.firebase.remoteconfig.FirebaseRemoteConfigSettings;
 
 /**
- * メインアクティビティ。UI操作、センサー入力処理、
- * 各種マネージャークラスとの連携を担当する。
+ * メインアクティビティ。UI操作と、各種マネージャークラスとの連携を担当する。
+ * センサー、ゲームループ、BGMの開始/停止は GameStateMachine の状態遷移に任せる。
  */
-public class MainActivity extends AppCompatActivity implements SensorEventListener, GameCallback {
+public class MainActivity extends AppCompatActivity implements GameCallback {
 
     // --- マネージャー/コアロジック ---
     private SettingsManager settingsManager;
     private MediaManager mediaManager;
     private GameManager gameManager;
+    private HudManager hudManager;
+    private BitmapCache bitmapCache; // 表示サイズでデコードした画像の共有キャッシュ
+    private SpriteAtlas spriteAtlas; // ゲーム内スプライトをまとめたアトラス
+    private GameStateMachine stateMachine;
+    private RunHistoryManager runHistoryManager; // プレイの記録と統計
+    private QualityManager qualityManager; // フレーム時間と温度状態に応じた演出の品質段階
+    private AnalyticsManager analyticsManager; // ゲームごとの分析データの集計と送信
 
     // --- センサー関連 ---
     private SensorManager sensorManager;
+    private TiltInputManager tiltInputManager;
     private Vibrator vibrator;
 
     // --- UI要素 ---
     private ImageView playerImage;
+    private ImageView titleLogo;
+    private ParallaxBackgroundView backgroundView; // プレイ中に流れる雲の背景
+    private Drawable playerSprite, hitSprite; // アトラスの領域を表示するプレイヤー画像
     private TextView gameOverText;
     private TextView levelInfoText;
     private TextView scoreText;
     private TextView highScoreText;
     // ★修正: levelButtonsはLinearLayout型に変更
     private Button restartButton, easyButton, normalButton, hardButton, levelsButton, settingsCloseButton;
+    private Button statsButton, statsCloseButton;
     private ImageButton settingsButton;
     // ★修正: levelButtonsをLinearLayoutの宣言に追加
     private LinearLayout gameOverButtons, scorePanel, levelButtons;
     // ★追加: チュートリアル関連のFrameLayout、TextView、Buttonを追加
-    private FrameLayout gameOverPanel, raindropContainer, settingsPanel, tutorialPanel;
+    private FrameLayout gameOverPanel, settingsPanel, tutorialPanel, statsPanel;
+    private TextView statsText;
+    private RaindropView raindropContainer;
+    private EffectsView effectsView; // スコア/フラッシュ/レベルアップの演出
     private TextView tutorialText;
     private Button tutorialStartButton;
+    private TextView metricsOverlay; // フレーム計測のデバッグ表示
 
     private SeekBar volumeSeekBar;
     private Switch vibrationSwitch;
     private ViewGroup mainLayout;
     private ImageButton pauseButton;
-    private boolean isGamePaused = false;
-    private boolean wasGameRunningBeforePause = false;
 
     // --- ゲーム設定値（難易度選択時にセット） ---
-    private int selectedRainSpawnChance = 5;
-    private int selectedScoreMultiplier = 3;
+    private Difficulty selectedDifficulty = Difficulty.NORMAL;
+    // Remote Config から作った難易度の表（有効化のたびに表ごと差し替える）
+    private volatile DifficultyTable difficultyTable = DifficultyTable.DEFAULTS;
 
-    private static final float PLAYER_SPEED_FACTOR = 50.0f;
-    private static final float SCORE_SCALE_FACTOR = 1.2f;
-    private static final int SCORE_ANIM_DURATION = 200;
+    // シミュレーションを専用のゲームスレッドで実行するかどうか
+    private static final boolean USE_GAME_THREAD = true;
     private final Handler scoreAnimHandler = new Handler(Looper.getMainLooper());
+    // 記録したプレイの保存先（filesDir 以下）と、起動時に再生するファイル名を受け取るextra
+    // 例: adb shell am start -n com.example.acc_02/.MainActivity --es replay_file last_hard.rpl
+    private static final String REPLAY_DIR = "replays";
+    private static final String EXTRA_REPLAY_FILE = "replay_file";
+    private static final long METRICS_OVERLAY_INTERVAL_MS = 500;
+    // 品質段階ごとの描画する雨粒の上限
+    private static final int MAX_VISIBLE_DROPS_SIMPLE = 64;
+    private static final int MAX_VISIBLE_DROPS_REDUCED = 40;
+    private final StringBuilder metricsText = new StringBuilder(512);
+    private final Runnable metricsOverlayUpdater = this::updateMetricsOverlay;
 
     // Firebase関連の変数
-    private FirebaseAnalytics mFirebaseAnalytics;
     private FirebaseRemoteConfig remoteConfig;
+    private ConfigUpdateListenerRegistration configUpdateRegistration;
     // デバッグ時は即時取得（0）、本番時はキャッシュを利用
     private final long CACHE_EXPIRATION_SECONDS = BuildConfig.DEBUG ? 0 : 3600;
 
@@ -96,68 +128,24 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
     @Override
     protected void onPause() {
         super.onPause();
-        if (sensorManager != null) {
-            sensorManager.unregisterListener(this);
-        }
-        if (mediaManager != null) mediaManager.onPause();
-        // isGamePaused はユーザーがボタンを押したかどうか
-        if (gameManager != null) {
-            if (!isGamePaused && levelButtons.getVisibility() == View.GONE && gameOverPanel.getVisibility() == View.GONE) {
-                wasGameRunningBeforePause = true;
-            }
-            // ★修正: ライフサイクルの一時停止では、雨粒を消さない pauseLoopOnly() を呼ぶ
-            // gameManager.pauseGame(); // <-- 削除
-            gameManager.pauseLoopOnly(); // <-- これに戻す
-        }
+        // センサーとゲームループを止め、BGMを一時停止する（状態は保持し、復帰時に同じ状態から再開する）
+        if (stateMachine != null) stateMachine.onPause();
+        // 未保存の設定とハイスコアを書き込む
+        if (settingsManager != null) settingsManager.flush();
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-
-        // ★修正: チュートリアル画面もアクティブ画面ではないと見なす
-        final boolean isGameActiveScreen = (levelButtons.getVisibility() == View.GONE && gameOverPanel.getVisibility() == View.GONE && tutorialPanel.getVisibility() == View.GONE);
-        boolean shouldResumeAfterLifecycle = isGameActiveScreen && !isGamePaused && wasGameRunningBeforePause;
-
-        // センサー再開（ポーズ中でもセンサーは必要）
-        if (isGameActiveScreen) {
-            List<Sensor> sensors = sensorManager.getSensorList(Sensor.TYPE_ACCELEROMETER);
-            if (sensors.size() > 0) {
-                Sensor s = sensors.get(0);
-                sensorManager.registerListener(this, s, SensorManager.SENSOR_DELAY_NORMAL);
-            }
-        }
-
-        // BGM再開（ポーズ中は再開しない）
-        if (mediaManager != null) {
-            MediaPlayer newBgm = null;
-            // ★修正: チュートリアル画面もメニューBGM
-            if (settingsPanel.getVisibility() == View.VISIBLE || levelButtons.getVisibility() == View.VISIBLE || tutorialPanel.getVisibility() == View.VISIBLE) {
-                newBgm = mediaManager.getMpMenu();
-            } else if (gameOverPanel.getVisibility() == View.VISIBLE) {
-                newBgm = mediaManager.getMpGameOver();
-            } else if (shouldResumeAfterLifecycle) {
-                newBgm = mediaManager.getMpGame();
-            }
-
-            if (newBgm != null) mediaManager.startBGM(newBgm);
-            mediaManager.onResume();
-        }
-
-        // ゲームループ再開
-        if (gameManager != null) {
-            if (shouldResumeAfterLifecycle) {
-                gameManager.startGameLoop();
-            }
-        }
-
-
-        wasGameRunningBeforePause = false;
+        // 現在の状態に必要なものだけを再開する（センサーとゲームループは Playing 状態のときのみ）
+        stateMachine.onResume();
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // 設定の読み込みはバックグラウンドで行い、レイアウトの読み込みと並行させる
+        settingsManager = new SettingsManager(this);
         setContentView(R.layout.activity_main);
 
         this.setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_PORTRAIT);
@@ -166,14 +154,28 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
 
         // UI要素の初期化
         initializeUIComponents();
+        loadBitmaps();
 
         // マネージャーの初期化
-        settingsManager = new SettingsManager(this);
         mediaManager = new MediaManager(this);
-        gameManager = new GameManager(this, raindropContainer, mainLayout, playerImage, this);
-
-        // Firebase Analyticsの初期化
-        mFirebaseAnalytics = FirebaseAnalytics.getInstance(this);
+        runHistoryManager = new RunHistoryManager(this);
+        hudManager = new HudManager(this, scoreText, levelInfoText);
+        gameManager = new GameManager(this, raindropContainer, mainLayout, playerImage, this, USE_GAME_THREAD);
+        gameManager.setBackground(backgroundView);
+        // 傾きはバックグラウンドスレッドで読み取り、ゲームループがステップごとに読み取る
+        tiltInputManager = new TiltInputManager(sensorManager, gameManager.getTiltInput());
+        // 描画が間に合わない、または端末が熱い間は演出を段階的に軽くする
+        qualityManager = new QualityManager(this, this::applyQualityTier);
+        applyQualityTier(qualityManager.getTier());
+        // 分析イベントはゲームごとに集計し、送信は専用スレッドで行う
+        analyticsManager = new AnalyticsManager(this);
+        qualityManager.setFrameObserver(analyticsManager::onFrame);
+        // ★追加: チュートリアル未表示の場合はチュートリアルから始める（再生の指定がある場合はメニューから）
+        final String replayFile = getIntent().getStringExtra(EXTRA_REPLAY_FILE);
+        final GameState initialState = settingsManager.isTutorialShown() || replayFile != null
+                ? GameState.MENU : GameState.TUTORIAL;
+        stateMachine = new GameStateMachine(initialState, gameManager, mediaManager, tiltInputManager,
+                qualityManager);
 
         // Firebase Remote Configの初期化と設定
         remoteConfig = FirebaseRemoteConfig.getInstance();
@@ -181,10 +183,13 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
                 .setMinimumFetchIntervalInSeconds(CACHE_EXPIRATION_SECONDS)
                 .build();
         remoteConfig.setConfigSettingsAsync(configSettings);
-        remoteConfig.setDefaultsAsync(R.xml.remote_config_defaults);
+        // 既定値（と前回までに有効化した値）から難易度の表と品質のしきい値を作る
+        remoteConfig.setDefaultsAsync(R.xml.remote_config_defaults)
+                .addOnCompleteListener(this, task -> applyRemoteConfig());
 
         // Remote Configの値のフェッチと適用
         fetchRemoteConfig();
+        listenForConfigUpdates();
 
         // 設定の適用とUI反映
         mediaManager.adjustVolume(settingsManager.getCurrentVolume());
@@ -207,12 +212,14 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         // UIイベントリスナーの設定
         setupEventListeners();
 
-        // ★追加: チュートリアル表示判定
-        if (!settingsManager.isTutorialShown()) {
+        // ★追加: チュートリアル表示判定（BGMは onResume で状態に合わせて開始する）
+        if (initialState == GameState.TUTORIAL) {
             showTutorial(); // まだ表示されていない場合はチュートリアルを表示
-        } else {
-            // チュートリアルが既に表示済みの場合は、メニューBGMを開始
-            mediaManager.startBGM(mediaManager.getMpMenu());
+        }
+
+        // 記録したプレイの再生（性能の回帰確認用）
+        if (replayFile != null) {
+            startReplayFlow(new File(new File(getFilesDir(), REPLAY_DIR), replayFile));
         }
     }
 
@@ -228,14 +235,54 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
                     } else {
                         Log.d("RemoteConfig", "Fetch failed. Using default values.");
                     }
-                    // フェッチ結果に関わらず、ボタンのクリックイベントで最新の値が使われる
+                    applyRemoteConfig();
                 });
     }
 
+    /**
+     * Remote Config の更新をリアルタイムで受け取り、難易度のパラメータまたは品質のしきい値が変わった場合は
+     * 有効化して差し替える。プレイ中のゲームは開始時の難易度のまま続き、次のゲームから新しい値を使う。
+     */
+    private void listenForConfigUpdates() {
+        configUpdateRegistration = remoteConfig.addOnConfigUpdateListener(new ConfigUpdateListener() {
+            @Override
+            public void onUpdate(ConfigUpdate configUpdate) {
+                if (!DifficultyTable.isAffectedBy(configUpdate.getUpdatedKeys())
+                        && !QualityManager.isAffectedBy(configUpdate.getUpdatedKeys())) return;
+                remoteConfig.activate().addOnCompleteListener(MainActivity.this, task -> applyRemoteConfig());
+            }
+
+            @Override
+            public void onError(FirebaseRemoteConfigException error) {
+                Log.w("RemoteConfig", "Config update error: " + error.getCode(), error);
+            }
+        });
+    }
+
+    /**
+     * 有効化されている値から難易度の表と品質のしきい値を作り直して差し替える（UIスレッド）。
+     */
+    private void applyRemoteConfig() {
+        DifficultyTable table = DifficultyTable.fromRemoteConfig(remoteConfig);
+        difficultyTable = table;
+        Log.d("RemoteConfig", "Difficulty table: " + table.get(Difficulty.EASY) + " "
+                + table.get(Difficulty.NORMAL) + " " + table.get(Difficulty.HARD));
+        qualityManager.setThresholds(QualityManager.fromRemoteConfig(remoteConfig));
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (configUpdateRegistration != null) configUpdateRegistration.remove();
+        if (analyticsManager != null) analyticsManager.release();
         if (mediaManager != null) mediaManager.release();
+        if (settingsManager != null) settingsManager.release();
+        if (runHistoryManager != null) runHistoryManager.release();
+        if (gameManager != null) gameManager.release();
+        if (tiltInputManager != null) tiltInputManager.release();
+        if (qualityManager != null) qualityManager.release();
+        if (bitmapCache != null) bitmapCache.release();
+        scoreAnimHandler.removeCallbacks(metricsOverlayUpdater);
     }
 
     // =========================================================================================
@@ -247,6 +294,8 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
      */
     private void initializeUIComponents() {
         playerImage = findViewById(R.id.imageView1);
+        backgroundView = findViewById(R.id.background);
+        titleLogo = findViewById(R.id.titleLogo);
         gameOverText = findViewById(R.id.gameOverText);
         levelInfoText = findViewById(R.id.levelInfoText);
         scoreText = findViewById(R.id.scoreText);
@@ -262,13 +311,19 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         gameOverButtons = findViewById(R.id.gameOverButtons);
         mainLayout = findViewById(R.id.main);
         raindropContainer = findViewById(R.id.raindropContainer);
+        effectsView = findViewById(R.id.effectsView);
         scorePanel = findViewById(R.id.scorePanel);
         gameOverPanel = findViewById(R.id.gameOverPanel);
         settingsPanel = findViewById(R.id.settingsPanel);
+        statsPanel = findViewById(R.id.statsPanel);
+        statsText = findViewById(R.id.statsText);
+        statsButton = findViewById(R.id.statsButton);
+        statsCloseButton = findViewById(R.id.statsCloseButton);
         // ★追加: チュートリアル関連の初期化
         tutorialPanel = findViewById(R.id.tutorialPanel);
         tutorialText = findViewById(R.id.tutorialText);
         tutorialStartButton = findViewById(R.id.tutorialStartButton);
+        metricsOverlay = findViewById(R.id.metricsOverlay);
 
         volumeSeekBar = findViewById(R.id.volumeSeekBar);
         vibrationSwitch = findViewById(R.id.vibrationSwitch);
@@ -279,10 +334,42 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         scoreText.setShadowLayer(3.0f, 1.0f, 1.0f, getResources().getColor(R.color.black, getTheme()));
     }
 
+    /**
+     * 画像を表示サイズでデコードしてビューに設定する。
+     * レイアウトでは画像を指定せず（インフレート時に元の解像度でデコードされるのを避ける）、ここで設定する。
+     * ゲーム内のスプライトはアトラスから描画する。
+     */
+    private void loadBitmaps() {
+        bitmapCache = new BitmapCache(getResources());
+        DisplayMetrics display = getResources().getDisplayMetrics();
+
+        // 背景は画面全体を覆う大きさ（シェーダーで繰り返して流す）、タイトルロゴは画面幅に収まる大きさ
+        backgroundView.setBitmap(bitmapCache.get(R.drawable.kumo_bg,
+                display.widthPixels, display.heightPixels, BitmapCache.Fit.COVER));
+        titleLogo.setImageBitmap(bitmapCache.get(R.drawable.title_logo_new,
+                display.widthPixels, display.widthPixels, BitmapCache.Fit.INSIDE));
+        // ゲーム内のスプライトは1枚のアトラスから描画する（ゲームオーバー時の画像の切り替えでデコードが発生しない）
+        try {
+            spriteAtlas = SpriteAtlas.load(getAssets());
+        } catch (IOException e) {
+            throw new IllegalStateException("Sprite atlas is missing", e); // ビルド時に生成されるため通常は起きない
+        }
+        raindropContainer.setSprite(spriteAtlas, SpriteAtlasIndex.AME);
+        playerSprite = spriteAtlas.newDrawable(SpriteAtlasIndex.HANGRIDER_WOMAN);
+        hitSprite = spriteAtlas.newDrawable(SpriteAtlasIndex.HIT_EFFECT);
+        playerImage.setImageDrawable(playerSprite);
+    }
+
     /**
      * すべてのボタンやシークバーのイベントリスナーを設定する。
      */
     private void setupEventListeners() {
+        // スコアパネルの長押しでフレーム計測のデバッグ表示を切り替える
+        scorePanel.setOnLongClickListener(v -> {
+            toggleMetricsOverlay();
+            return true;
+        });
+
         settingsButton.setOnClickListener(v -> {
             mediaManager.playClickSound();
             showSettingsScreen();
@@ -293,6 +380,16 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
             hideSettingsScreen();
         });
 
+        statsButton.setOnClickListener(v -> {
+            mediaManager.playClickSound();
+            showStatsScreen();
+        });
+
+        statsCloseButton.setOnClickListener(v -> {
+            mediaManager.playClickSound();
+            hideStatsScreen();
+        });
+
         // ★追加: チュートリアル開始ボタンのリスナー
         tutorialStartButton.setOnClickListener(v -> {
             mediaManager.playClickSound();
@@ -303,10 +400,7 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
             // 2. チュートリアルを表示済みに設定（永続化）
             settingsManager.setTutorialShown(true);
 
-            // 3. メニューBGMを開始
-            mediaManager.startBGM(mediaManager.getMpMenu());
-
-            // 4. ★追加: レベル選択画面を表示する（UIのVisibilityを制御）
+            // 3. ★追加: レベル選択画面を表示する（UIのVisibilityを制御）
             showLevelSelectScreen();
 
             // showLevelSelectScreen() の中で levelButtons.setVisibility(View.VISIBLE) が行われるため、
@@ -315,31 +409,22 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
 
         easyButton.setOnClickListener(v -> {
             mediaManager.playClickSound();
-//            selectedRainSpawnChance = 1;
-//            selectedScoreMultiplier = 1;
-            // Remote Configから最新値を取得して設定
-            selectedRainSpawnChance = (int) remoteConfig.getLong("easy_spawn_chance");
-            selectedScoreMultiplier = (int) remoteConfig.getLong("easy_multiplier");
+            // パラメータはゲーム開始時に難易度の表から取り出す
+            selectedDifficulty = Difficulty.EASY;
             startGameFlow();
         });
 
         normalButton.setOnClickListener(v -> {
             mediaManager.playClickSound();
-//            selectedRainSpawnChance = 5;
-//            selectedScoreMultiplier = 3;
-            // Remote Configから最新値を取得して設定
-            selectedRainSpawnChance = (int) remoteConfig.getLong("normal_spawn_chance");
-            selectedScoreMultiplier = (int) remoteConfig.getLong("normal_multiplier");
+            // パラメータはゲーム開始時に難易度の表から取り出す
+            selectedDifficulty = Difficulty.NORMAL;
             startGameFlow();
         });
 
         hardButton.setOnClickListener(v -> {
             mediaManager.playClickSound();
-//            selectedRainSpawnChance = 10;
-//            selectedScoreMultiplier = 5;
-            // Remote Configから最新値を取得して設定
-            selectedRainSpawnChance = (int) remoteConfig.getLong("hard_spawn_chance");
-            selectedScoreMultiplier = (int) remoteConfig.getLong("hard_multiplier");
+            // パラメータはゲーム開始時に難易度の表から取り出す
+            selectedDifficulty = Difficulty.HARD;
             startGameFlow();
         });
 
@@ -354,13 +439,12 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
             public void onStartTrackingTouch(SeekBar seekBar) {}
             @Override
             public void onStopTrackingTouch(SeekBar seekBar) {
-                settingsManager.saveSettings();
+                settingsManager.flush(); // 操作の終了時にまとめて書き込む
             }
         });
 
         vibrationSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
             settingsManager.setVibrationOn(isChecked);
-            settingsManager.saveSettings();
         });
 
         restartButton.setOnClickListener(v -> {
@@ -378,8 +462,31 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
      * 難易度選択後のゲーム開始フローを処理する。
      */
     private void startGameFlow() {
-        mediaManager.startBGM(mediaManager.getMpGame());
+        showGameScreen();
 
+        // ゲームマネージャーに処理を委譲
+        DifficultyProfile profile = difficultyTable.get(selectedDifficulty);
+        gameManager.startGame(profile);
+        // Analytics - このゲームの集計を開始する（送信はゲーム終了時に1回だけ）
+        analyticsManager.beginSession(getLevelString(), profile.scoreMultiplier);
+        // Playing 状態へ遷移（センサーの登録とゲームBGMの開始）
+        stateMachine.transitionTo(GameState.PLAYING);
+    }
+
+    /**
+     * 記録したプレイを再生する。フレーム計測を有効にし、ゲームオーバー時に計測結果と最終スコアをlogcatへ出力する。
+     */
+    private void startReplayFlow(File replayFile) {
+        showGameScreen();
+        gameManager.setMetricsEnabled(true);
+        gameManager.startReplay(replayFile);
+        stateMachine.transitionTo(GameState.PLAYING);
+    }
+
+    /**
+     * ゲーム画面に切り替え、スコアと演出を初期化する。
+     */
+    private void showGameScreen() {
         // UI切り替え
         levelButtons.setVisibility(View.GONE);
         settingsButton.setVisibility(View.GONE);
@@ -395,26 +502,12 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         // ★追加: チュートリアルパネルも非表示にする
         tutorialPanel.setVisibility(View.GONE);
 
-        settingsManager.loadHighScore(); // 永続化された最新の値をSettingsManagerに読み込む
-        updateHighScoreUI();             // UIに反映
-
-        // ★★★ 状態フラグの確実なリセットと設定 ★★★
-        isGamePaused = false;
-        // ライフサイクルによる自動再開を防ぐフラグもリセット
-        // (フィールドに追加した wasGameRunningBeforePause があればここでリセット)
-        // wasGameRunningBeforePause = false;
+        updateHighScoreUI(); // ハイスコアはSettingsManagerがメモリ上に保持している
 
         pauseButton.setImageResource(R.drawable.ic_pause); // アイコンを再生状態に
 
-        // ★★★ センサーの強制的な再登録 ★★★
-        // リスタート/ゲーム再開時にキャラクターが動くことを保証する
-        List<Sensor> sensors = sensorManager.getSensorList(Sensor.TYPE_ACCELEROMETER);
-        if (sensors.size() > 0) {
-            Sensor s = sensors.get(0);
-            sensorManager.registerListener(this, s, SensorManager.SENSOR_DELAY_NORMAL);
-        }
-
-        // プレイヤーの初期位置設定
+        // プレイヤーの画像（ゲームオーバー時の画像から戻す）と初期位置設定
+        playerImage.setImageDrawable(playerSprite);
         playerImage.post(() -> {
             int mainWidth = mainLayout.getWidth();
             int mainHeight = mainLayout.getHeight();
@@ -428,27 +521,19 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
 
             playerImage.setX((mainWidth - playerImage.getWidth()) / 2.0f);
             playerImage.setY((mainHeight - playerImage.getHeight()) / 2.0f);
-
-            playerImage.setImageResource(R.drawable.hangrider_woman);
         });
 
         // スコアとUIをリセット
-        scoreText.setText("Score: 0");
-
-        // ゲームマネージャーに処理を委譲
-        gameManager.startGame(selectedRainSpawnChance, selectedScoreMultiplier);
-
-        // Analytics - プレイ開始とレベルの取得
-        Bundle params = new Bundle();
-        params.putString(FirebaseAnalytics.Param.LEVEL, getLevelString()); // 選んだレベル
-        params.putString("start_time", String.valueOf(System.currentTimeMillis())); // プレイ開始時間
-        mFirebaseAnalytics.logEvent("game_start", params);
+        hudManager.reset();
+        effectsView.clear();
     }
 
     /**
      * 設定画面を表示する。
      */
     private void showSettingsScreen() {
+        stateMachine.transitionTo(GameState.SETTINGS);
+
         levelButtons.setVisibility(View.GONE);
         playerImage.setVisibility(View.GONE);
         scorePanel.setVisibility(View.GONE);
@@ -471,7 +556,49 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         settingsPanel.setVisibility(View.GONE);
         levelButtons.setVisibility(View.VISIBLE);
         settingsButton.setVisibility(View.VISIBLE);
-        mediaManager.startBGM(mediaManager.getMpMenu());
+        stateMachine.transitionTo(GameState.MENU);
+    }
+
+    /**
+     * プレイの記録の統計画面を表示する。統計は RunHistoryManager が保持している最新のものをそのまま使う。
+     */
+    private void showStatsScreen() {
+        if (!stateMachine.transitionTo(GameState.STATS)) return;
+
+        levelButtons.setVisibility(View.GONE);
+        settingsButton.setVisibility(View.GONE);
+        statsText.setText(formatStats(runHistoryManager.getStats()));
+        statsPanel.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * 統計画面を非表示にし、スタート画面（難易度選択）に戻る。
+     */
+    private void hideStatsScreen() {
+        statsPanel.setVisibility(View.GONE);
+        levelButtons.setVisibility(View.VISIBLE);
+        settingsButton.setVisibility(View.VISIBLE);
+        stateMachine.transitionTo(GameState.MENU);
+    }
+
+    private static String formatStats(RunHistoryManager.Stats stats) {
+        StringBuilder out = new StringBuilder(512);
+        out.append("Runs: ").append(stats.totalRuns).append("\n\n");
+        out.append(String.format(Locale.US, "%-7s %5s %6s %7s %7s%n", "", "RUNS", "BEST", "AVG", "RECENT"));
+        for (Difficulty d : Difficulty.values()) {
+            int i = d.ordinal();
+            out.append(String.format(Locale.US, "%-7s %5d %6s %7.1f %7.1f%n",
+                    d.key.toUpperCase(Locale.US), stats.runCounts[i],
+                    stats.bestScores[i] >= 0 ? String.valueOf(stats.bestScores[i]) : "-",
+                    stats.averageScores[i], stats.recentAverageScores[i]));
+        }
+        out.append("\nTOP ").append(RunHistory.TOP_N).append('\n');
+        int rank = 1;
+        for (RunHistory.Run run : stats.topRuns) {
+            out.append(String.format(Locale.US, "%2d. %6d  %-6s Lv%-2d %4ds%n", rank++, run.score,
+                    run.difficulty != null ? run.difficulty.key : "?", run.level, run.durationMillis / 1000));
+        }
+        return out.toString();
     }
 
     // ★追加: チュートリアル画面を表示するメソッド
@@ -490,9 +617,6 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         pauseButton.setVisibility(View.GONE);
 
         tutorialPanel.setVisibility(View.VISIBLE); // チュートリアルパネルを表示
-
-        // 必要であれば、ここでチュートリアル用のBGMを再生
-        // mediaManager.startBGM(mediaManager.getMpTutorial());
     }
 
 
@@ -500,19 +624,19 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
      * 難易度選択画面に戻る。
      */
     private void showLevelSelectScreen() {
-        mediaManager.startBGM(mediaManager.getMpMenu());
+        stateMachine.transitionTo(GameState.MENU);
 
         // UIリセット
-        scoreText.setText("Score: 0");
+        hudManager.showScore(0);
         gameOverText.setVisibility(View.GONE);
         gameOverButtons.setVisibility(View.GONE);
 
         // ★最重要修正: 画面を覆うパネルを確実に非表示にする
         gameOverPanel.setVisibility(View.GONE);
         settingsPanel.setVisibility(View.GONE);
+        statsPanel.setVisibility(View.GONE);
         tutorialPanel.setVisibility(View.GONE);
 
-        raindropContainer.removeAllViews();
         playerImage.setVisibility(View.GONE);
         scorePanel.setVisibility(View.GONE);
         raindropContainer.setVisibility(View.GONE);
@@ -542,38 +666,30 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
      */
     @Override
     public void onRaindropMissed(int addedScore) {
-        scoreText.setText("Score: " + gameManager.getScore());
+        hudManager.showScore(gameManager.getScore());
         startScoreAnimation(addedScore);
+        analyticsManager.onScore(addedScore, gameManager.getElapsedMillis());
     }
 
-    // 一時停止/再開を切り替えるメソッド
+    // 一時停止/再開を切り替えるメソッド（センサー、ゲームループ、BGMは状態遷移で切り替わる）
     private void togglePauseGame() {
-        wasGameRunningBeforePause = false;
-        if (isGamePaused) {
-            // ゲームを再開
-            gameManager.resumeGame();
-            mediaManager.startBGM(mediaManager.getMpGame());
+        if (stateMachine.getState() == GameState.PAUSED) {
+            stateMachine.transitionTo(GameState.PLAYING);
             pauseButton.setImageResource(R.drawable.ic_pause);
-            isGamePaused = false;
-            // ★追加: センサーを再開
-            List<Sensor> sensors = sensorManager.getSensorList(Sensor.TYPE_ACCELEROMETER);
-            if (sensors.size() > 0) {
-                Sensor s = sensors.get(0);
-                sensorManager.registerListener(this, s, SensorManager.SENSOR_DELAY_NORMAL);
-            }
-        } else {
-            // ゲームを一時停止
-            gameManager.pauseGame();
-            mediaManager.pauseBGM();
+        } else if (stateMachine.transitionTo(GameState.PAUSED)) {
             pauseButton.setImageResource(R.drawable.ic_play);
-            isGamePaused = true;
-            // ★追加: センサーを停止
-            if (sensorManager != null) {
-                sensorManager.unregisterListener(this);
-            }
+            analyticsManager.onPause();
         }
     }
 
+    /**
+     * 記録したプレイを読み込めず、再生が始まらなかったときに呼ばれる。ゲーム画面からメニューへ戻す。
+     */
+    @Override
+    public void onReplayFailed() {
+        showLevelSelectScreen();
+    }
+
     /**
      * 衝突が発生し、ゲームオーバーになったときに呼ばれる。
      * @param score 最終スコア
@@ -598,41 +714,38 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
             android.util.Log.d("VIBE_DEBUG", "Vibration skipped (Setting OFF or No hardware).");
         }
 
-        mediaManager.startBGM(mediaManager.getMpGameOver());
+        // GameOver 状態へ遷移（センサーの登録解除とゲームオーバーBGMの開始）
+        stateMachine.transitionTo(GameState.GAME_OVER);
 
-        settingsManager.saveHighScore(score);
+        // 再生したプレイはハイスコアや分析に含めない
+        if (!gameManager.isReplaying()) {
+            settingsManager.saveHighScore(score);
+            // プレイの記録を追記する（書き込みは専用スレッドで行う）
+            runHistoryManager.record(score, gameManager.getLevel(), gameManager.getElapsedMillis(),
+                    selectedDifficulty, gameManager.getGameSeed());
 
-        // Analytics - プレイ終了、スコア、プレイ時間、終了時刻の取得
-        long endTime = System.currentTimeMillis();
-        long startTime = gameManager.getGameStartTime();
-        long durationSeconds = (endTime - startTime) / 1000;
+            // Analytics - このゲームの要約を LEVEL_END イベントとして1件送信する（組み立てと送信は専用スレッド）
+            analyticsManager.endSession(score, gameManager.getElapsedMillis());
 
-        Bundle params = new Bundle();
-        params.putString(FirebaseAnalytics.Param.LEVEL, getLevelString());   // 選んだレベル
-        params.putLong(FirebaseAnalytics.Param.SCORE, score);                // 最終スコア
-        params.putLong(FirebaseAnalytics.Param.VALUE, durationSeconds);      // プレイ時間 (秒)
-        params.putString("end_time", String.valueOf(endTime));               // プレイ終了時間
-
-        // LEVEL_END (プレイ終了) イベントとして記録
-        mFirebaseAnalytics.logEvent(FirebaseAnalytics.Event.LEVEL_END, params);
+            // フレーム計測中のプレイは、あとで同じ条件で再生できるよう保存しておく
+            if (gameManager.isMetricsEnabled()) {
+                gameManager.saveLastReplay(new File(new File(getFilesDir(), REPLAY_DIR), "last_" + getLevelString() + ".rpl"));
+            }
+        }
 
-        playerImage.setImageResource(R.drawable.hit_effect);
+        playerImage.setImageDrawable(hitSprite);
 
         scoreAnimHandler.postDelayed(this::showGameOverScreenUI, 500);
 
         pauseButton.setVisibility(View.GONE);
-        isGamePaused = false; // ゲームオーバー時は一時停止状態ではない
         pauseButton.setImageResource(R.drawable.ic_pause); // アイコンをリセット
 //        settingsButton.setVisibility(View.VISIBLE); // 設定ボタンを再表示
     }
 
     // ★追加: Analytics用のヘルパーメソッド
     private String getLevelString() {
-        // Remote Configの値ではなく、対応するSpawnChanceの値で判断する
-        if (selectedRainSpawnChance == remoteConfig.getLong("easy_spawn_chance")) return "easy";
-        if (selectedRainSpawnChance == remoteConfig.getLong("normal_spawn_chance")) return "normal";
-        if (selectedRainSpawnChance == remoteConfig.getLong("hard_spawn_chance")) return "hard";
-        return "unknown";
+        // 選んだ難易度（Remote Configの値が途中で変わっても同じ名前になる）
+        return selectedDifficulty.key;
     }
 
     private void showGameOverScreenUI() {
@@ -666,35 +779,36 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
     @Override
     public void onLevelUp(int currentLevel) {
         mediaManager.playLevelUpSound();
-        runFlashEffect();
-
-        // LEVEL UP! テキスト表示
-        levelInfoText.setTextSize(android.util.TypedValue.COMPLEX_UNIT_SP, 24);
-        levelInfoText.setTextColor(getResources().getColor(R.color.colorAccentScore, getTheme()));
-        levelInfoText.setText("LEVEL UP! " + currentLevel);
+        analyticsManager.onLevelUp(currentLevel);
+        effectsView.flash();
+        effectsView.showLevelBanner(currentLevel);
+    }
 
-        // 1秒後に元の表示に戻す（次のコールバックで上書きされるため、UIの装飾のみ解除）
-        scoreAnimHandler.postDelayed(() -> {
-            levelInfoText.setTextSize(android.util.TypedValue.COMPLEX_UNIT_SP, 14);
-            levelInfoText.setTextColor(getResources().getColor(android.R.color.white, getTheme()));
-        }, 1000);
+    /**
+     * 品質段階に合わせて演出と描画の頻度を切り替える。段階が上がるほど、下の段階の省略もすべて行う。
+     * @param tier QualityGovernor.TIER_*
+     */
+    private void applyQualityTier(int tier) {
+        effectsView.setPopupsEnabled(tier < QualityGovernor.TIER_NO_POPUPS);
+        effectsView.setSimpleFlash(tier >= QualityGovernor.TIER_SIMPLE_EFFECTS);
+        backgroundView.setNearLayerEnabled(tier < QualityGovernor.TIER_SIMPLE_EFFECTS);
+        if (tier >= QualityGovernor.TIER_REDUCED_RATE) {
+            raindropContainer.setMaxVisibleDrops(MAX_VISIBLE_DROPS_REDUCED);
+        } else if (tier >= QualityGovernor.TIER_SIMPLE_EFFECTS) {
+            raindropContainer.setMaxVisibleDrops(MAX_VISIBLE_DROPS_SIMPLE);
+        } else {
+            raindropContainer.setMaxVisibleDrops(Integer.MAX_VALUE);
+        }
+        gameManager.setPresentInterval(tier >= QualityGovernor.TIER_REDUCED_RATE ? 2 : 1);
     }
 
     /**
-     * レベル情報テキスト（カウントダウン）を更新する。
-     * @param text 表示するテキスト
-     * @param textSize テキストサイズ (sp)
-     * @param textColor テキストの色 (リソースID)
-     * @param alpha 透明度
+     * レベルアップまでの残り秒数が変わったときに呼ばれる。
+     * @param secondsToNextLevel 残り秒数
      */
     @Override
-    public void onUpdateLevelText(String text, int textSize, int textColor, float alpha) {
-        levelInfoText.setText(text);
-        if (textColor != 0) { // 色が指定されている場合のみ適用
-            levelInfoText.setTextColor(textColor);
-        }
-        levelInfoText.setTextSize(android.util.TypedValue.COMPLEX_UNIT_SP, textSize);
-        levelInfoText.setAlpha(alpha);
+    public void onLevelCountdown(int secondsToNextLevel) {
+        hudManager.showCountdown(secondsToNextLevel);
     }
 
     // =========================================================================================
@@ -707,137 +821,39 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
      */
     private void startScoreAnimation(int addedScore) {
         // 1. スコアTextViewのアニメーション
-        scoreText.animate()
-                .scaleX(SCORE_SCALE_FACTOR)
-                .scaleY(SCORE_SCALE_FACTOR)
-                .setDuration(SCORE_ANIM_DURATION)
-                .withStartAction(() -> scoreText.setTextColor(getResources().getColor(R.color.colorAccentScore, getTheme())))
-                .withEndAction(() -> {
-                    scoreText.animate()
-                            .scaleX(1.0f)
-                            .scaleY(1.0f)
-                            .setDuration(SCORE_ANIM_DURATION)
-                            .start();
-                    scoreText.setTextColor(getResources().getColor(android.R.color.white, getTheme()));
-                })
-                .start();
-
-        // 2. フローティングテキスト (+Xpt) の作成とアニメーション
-        TextView floatText = new TextView(this);
-        floatText.setText("+" + addedScore);
-        floatText.setTextColor(getResources().getColor(R.color.colorAccentScore, getTheme()));
-        floatText.setTextSize(20);
-        floatText.setElevation(5);
-        floatText.setShadowLayer(3.0f, 1.0f, 1.0f, getResources().getColor(R.color.black, getTheme()));
-
-        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
-                ViewGroup.LayoutParams.WRAP_CONTENT,
-                ViewGroup.LayoutParams.WRAP_CONTENT
-        );
+        hudManager.pulseScore();
 
+        // 2. フローティングテキスト (+Xpt)（上に移動しつつフェードアウトする。同じフレームの加算は1つにまとめる）
         float startX = playerImage.getX() + (playerImage.getWidth() / 2.0f);
         float startY = playerImage.getY() - 50;
-
-        floatText.setX(startX);
-        floatText.setY(startY);
-        mainLayout.addView(floatText, params);
-
-        // 上に移動しつつ、フェードアウトするアニメーション
-        floatText.animate()
-                .translationYBy(-100)
-                .alpha(0.0f)
-                .setDuration(800)
-                .withEndAction(() -> mainLayout.removeView(floatText))
-                .start();
+        effectsView.showScorePopup(addedScore, startX, startY);
     }
 
     /**
-     * 画面全体を短時間フラッシュさせる演出。
+     * フレーム計測のデバッグ表示を切り替える。表示中のみ計測を有効にする。
      */
-    private void runFlashEffect() {
-        View flashView = new View(this);
-        flashView.setLayoutParams(new ViewGroup.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT,
-                ViewGroup.LayoutParams.MATCH_PARENT));
-
-        flashView.setBackgroundColor(getResources().getColor(android.R.color.white, getTheme()));
-        flashView.setAlpha(0.0f);
-        flashView.setElevation(100f);
-
-        mainLayout.addView(flashView);
-
-        // フェードイン (一瞬明るく)
-        flashView.animate()
-                .alpha(0.8f)
-                .setDuration(100)
-                .withEndAction(() -> {
-                    // フェードアウト
-                    flashView.animate()
-                            .alpha(0.0f)
-                            .setDuration(300)
-                            .withEndAction(() -> mainLayout.removeView(flashView))
-                            .start();
-                })
-                .start();
-    }
-
-    // =========================================================================================
-    // センサーイベントリスナー
-    // =========================================================================================
-
-    @Override
-    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+    private void toggleMetricsOverlay() {
+        boolean show = metricsOverlay.getVisibility() != View.VISIBLE;
+        gameManager.setMetricsEnabled(show);
+        metricsOverlay.setVisibility(show ? View.VISIBLE : View.GONE);
+        scoreAnimHandler.removeCallbacks(metricsOverlayUpdater);
+        if (show) {
+            updateMetricsOverlay();
+        }
     }
 
     /**
-     * センサー値が変化したときにプレイヤー画像を移動・回転させる。
+     * デバッグ表示を最新の計測結果で更新し、一定間隔で再実行する。
      */
-    @Override
-    public void onSensorChanged(SensorEvent event) {
-        // ゲームオーバー時には操作を受け付けない
-        // ★修正: チュートリアル表示中も操作を受け付けない
-        if (gameOverPanel.getVisibility() == View.VISIBLE || levelButtons.getVisibility() == View.VISIBLE || tutorialPanel.getVisibility() == View.VISIBLE) return;
-
-        // ★追加: ゲームが一時停止中の場合は操作を受け付けない
-        if (isGamePaused) return;
-
-        if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            float x = event.values[0];
-
-            // 1. キャラクターの水平移動
-            float newX = playerImage.getX() - (x * PLAYER_SPEED_FACTOR);
-            int screenWidth = mainLayout.getWidth();
-            if (newX < 0) newX = 0;
-            if (newX + playerImage.getWidth() > screenWidth) {
-                newX = screenWidth - playerImage.getWidth();
-            }
-            playerImage.setX(newX);
-
-            // 2. キャラクターの垂直移動 (y軸は前後傾きで、ここでは上下移動に使用)
-            // ★重要: このロジックは、以前の会話で「意図しない垂直移動」として削除が推奨されたものです。
-            // 　　　　Gitプッシュ前にロジックを整理する場合は、このブロック全体を削除してください。
-            float y = event.values[1];
-            float newY = playerImage.getY() + (y * PLAYER_SPEED_FACTOR);
-            int screenHeight = mainLayout.getHeight();
-            if (newY < 0) newY = 0;
-            if (newY + playerImage.getHeight() > screenHeight) {
-                newY = screenHeight - playerImage.getHeight();
-            }
-            playerImage.setY(newY);
-            // ★重要: 垂直移動ロジックの終わり
-
-            // 3. キャラクターの回転
-            final float MAX_ROTATION_DEGREE = 20.0f;
-            final float SENSOR_SENSITIVITY = 4.0f;
-
-            float rotationDegree = -(x / SENSOR_SENSITIVITY) * MAX_ROTATION_DEGREE;
-            if (rotationDegree > MAX_ROTATION_DEGREE) {
-                rotationDegree = MAX_ROTATION_DEGREE;
-            } else if (rotationDegree < -MAX_ROTATION_DEGREE) {
-                rotationDegree = -MAX_ROTATION_DEGREE;
-            }
-
-            playerImage.setRotation(rotationDegree);
-        }
+    private void updateMetricsOverlay() {
+        if (metricsOverlay.getVisibility() != View.VISIBLE) return;
+        metricsText.setLength(0);
+        gameManager.appendMetricsSummary(metricsText);
+        metricsText.append('\n');
+        bitmapCache.appendSummary(metricsText);
+        metricsText.append("  atlas ").append(spriteAtlas.getByteCount() / 1024).append(" KB");
+        metricsText.append("\nquality tier ").append(qualityManager.getTier());
+        metricsOverlay.setText(metricsText);
+        scoreAnimHandler.postDelayed(metricsOverlayUpdater, METRICS_OVERLAY_INTERVAL_MS);
     }
-}
\ No newline at end of file
+}
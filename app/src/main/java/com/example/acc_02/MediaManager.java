@@ -1,76 +1,172 @@
 package com.example.acc_02;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
 import android.media.MediaPlayer;
-import android.media.SoundPool;
-import android.os.Build;
+import android.util.Log;
+
+import java.io.IOException;
 
 /**
  * BGMと効果音の再生を管理するクラス。
+ *
+ * BGMは必要になったときに prepareAsync で非同期に準備し、メインスレッドでデコーダーの準備を待たない。
+ * 保持するのは再生中の曲と、次に流れる可能性が高い曲（先読み）の2つまで。
+ * 曲の切り替えでは再生中のプレイヤーだけを止め、先読み済みの曲はすぐに再生を始める。
+ * 効果音の再生は SoundEffects が専用スレッドで行う。
  */
 public class MediaManager {
 
-    private final Context context;
+    private static final String TAG = "MediaManager";
+
+    /** BGMの種類 */
+    public enum Bgm {
+        MENU(R.raw.bgm_menu),
+        GAME(R.raw.bgm_game),
+        GAME_OVER(R.raw.bgm_gameover);
+
+        final int resId;
+
+        Bgm(int resId) {
+            this.resId = resId;
+        }
+
+        /**
+         * この曲の次に流れる可能性が高い曲（先読みの対象）。
+         */
+        Bgm next() {
+            switch (this) {
+                case MENU:      return GAME;      // 難易度選択 → ゲーム開始
+                case GAME:      return GAME_OVER;
+                case GAME_OVER: return GAME;      // リスタート
+                default:        return null;
+            }
+        }
+    }
+
+    /** 準備中または準備済みのBGM */
+    private static final class Track {
+        final Bgm bgm;
+        final MediaPlayer player;
+        boolean isPrepared = false;
+        boolean playWhenPrepared = false;
+
+        Track(Bgm bgm, MediaPlayer player) {
+            this.bgm = bgm;
+            this.player = player;
+        }
+    }
 
-    // BGM
-    private MediaPlayer mpMenu, mpGame, mpGameOver;
+    private final Context context;
+    private final AudioAttributes bgmAttributes = new AudioAttributes.Builder()
+            .setUsage(AudioAttributes.USAGE_GAME)
+            .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+            .build();
+
+    // BGM（メインスレッドのみ）
+    private Track current;    // 再生中（または一時停止中）の曲
+    private Track prefetched; // 先読みした次の曲
     private float currentVolume = 0.5f;
 
     // 効果音
-    private SoundPool soundPool;
-    private int hitSoundId;
-    private int clickSoundId;
-    private int levelUpSoundId;
+    private final SoundEffects soundEffects;
 
+    /**
+     * BGMはここでは準備せず、startBGM() で必要になったときに準備する。
+     */
     public MediaManager(Context context) {
         this.context = context;
-        initializeMedia();
+        soundEffects = new SoundEffects(context);
     }
 
     /**
-     * BGMと効果音（SoundPool）を初期化する。
+     * BGMを切り替える。同じ曲が一時停止中の場合は続きから再開する。
+     * 準備が済んでいない場合は、準備が終わり次第再生する。
+     * @param bgm 再生する曲
      */
-    private void initializeMedia() {
-        // BGMの初期化
-        mpMenu = MediaPlayer.create(context, R.raw.bgm_menu);
-        mpMenu.setLooping(true);
-        mpGame = MediaPlayer.create(context, R.raw.bgm_game);
-        mpGame.setLooping(true);
-        mpGameOver = MediaPlayer.create(context, R.raw.bgm_gameover);
-        mpGameOver.setLooping(true);
-
-        // SoundPoolの初期化
-        soundPool = new SoundPool.Builder().setMaxStreams(5).build();
-        hitSoundId = soundPool.load(context, R.raw.hit_sound, 1);
-        clickSoundId = soundPool.load(context, R.raw.click_sound, 1);
-        levelUpSoundId = soundPool.load(context, R.raw.levelup_sound, 1);
+    public void startBGM(Bgm bgm) {
+        if (current == null || current.bgm != bgm) {
+            Track previous = current;
+            if (prefetched != null && prefetched.bgm == bgm) {
+                current = prefetched;
+                prefetched = null;
+            } else {
+                current = prepare(bgm);
+            }
+            retire(previous, bgm.next());
+        }
+        if (current == null) return;
+
+        if (current.isPrepared) {
+            if (!current.player.isPlaying()) current.player.start();
+        } else {
+            current.playWhenPrepared = true;
+        }
+
+        // 次に流れる可能性が高い曲を先読みする
+        Bgm next = bgm.next();
+        if (next != null && (prefetched == null || prefetched.bgm != next)) {
+            releaseTrack(prefetched);
+            prefetched = prepare(next);
+        }
     }
 
     /**
-     * BGMを切り替え、すべてのBGMに現在の音量を適用する。
-     * @param newBgm 再生を開始するMediaPlayerインスタンス
+     * 再生を終えた曲を、次に使う曲であれば先頭に戻して先読みとして残し、そうでなければ解放する。
      */
-    public void startBGM(MediaPlayer newBgm) {
-        adjustVolume(currentVolume);
-
-        if (mpMenu != null && mpMenu.isPlaying()) { mpMenu.pause(); mpMenu.seekTo(0); }
-        if (mpGame != null && mpGame.isPlaying()) { mpGame.pause(); mpGame.seekTo(0); }
-        if (mpGameOver != null && mpGameOver.isPlaying()) { mpGameOver.pause(); mpGameOver.seekTo(0); }
+    private void retire(Track track, Bgm next) {
+        if (track == null) return;
+        track.playWhenPrepared = false;
+        if (track.bgm == next && (prefetched == null || prefetched.bgm != next)) {
+            if (track.isPrepared) {
+                track.player.pause();
+                track.player.seekTo(0);
+            }
+            releaseTrack(prefetched);
+            prefetched = track;
+        } else {
+            releaseTrack(track);
+        }
+    }
 
-        if (newBgm != null) {
-            newBgm.start();
+    /**
+     * 曲の準備を非同期で開始する。失敗した場合は null。
+     */
+    private Track prepare(Bgm bgm) {
+        MediaPlayer player = new MediaPlayer();
+        Track track = new Track(bgm, player);
+        player.setAudioAttributes(bgmAttributes);
+        player.setLooping(true);
+        player.setVolume(currentVolume, currentVolume);
+        player.setOnPreparedListener(mp -> {
+            track.isPrepared = true;
+            if (track.playWhenPrepared) mp.start();
+        });
+        try (AssetFileDescriptor afd = context.getResources().openRawResourceFd(bgm.resId)) {
+            player.setDataSource(afd);
+            player.prepareAsync();
+            return track;
+        } catch (IOException | IllegalStateException e) {
+            Log.e(TAG, "Failed to prepare " + bgm, e);
+            player.release();
+            return null;
         }
     }
 
+    private static void releaseTrack(Track track) {
+        if (track != null) track.player.release();
+    }
+
     /**
-     * BGMの再生を一時停止する。
-     * (MainActivityのポーズボタン押下時に使用。一時停止位置を保持する。)
+     * BGMの再生を一時停止する（再生位置は保持する）。
      */
-    public void pauseBGM() { // ★ このメソッドを追加
-        // 再生中のBGMを一時停止（位置は維持）
-        if (mpMenu != null && mpMenu.isPlaying()) { mpMenu.pause(); }
-        if (mpGame != null && mpGame.isPlaying()) { mpGame.pause(); }
-        if (mpGameOver != null && mpGameOver.isPlaying()) { mpGameOver.pause(); }
+    public void pauseBGM() {
+        if (current == null) return;
+        current.playWhenPrepared = false;
+        if (current.isPrepared && current.player.isPlaying()) {
+            current.player.pause();
+        }
     }
 
     /**
@@ -79,62 +175,51 @@ public class MediaManager {
      */
     public void adjustVolume(float volume) {
         this.currentVolume = volume;
-        if (mpMenu != null) mpMenu.setVolume(volume, volume);
-        if (mpGame != null) mpGame.setVolume(volume, volume);
-        if (mpGameOver != null) mpGameOver.setVolume(volume, volume);
+        if (current != null) current.player.setVolume(volume, volume);
+        if (prefetched != null) prefetched.player.setVolume(volume, volume);
     }
 
     /**
      * ボタンクリック効果音を再生する。
      */
     public void playClickSound() {
-        if (soundPool != null) {
-            soundPool.play(clickSoundId, 1.0f, 1.0f, 1, 0, 1.0f);
-        }
+        soundEffects.play(SoundEffects.Effect.CLICK);
     }
 
     /**
      * ヒット効果音を再生する。
      */
     public void playHitSound() {
-        if (soundPool != null) {
-            soundPool.play(hitSoundId, 1.0f, 1.0f, 1, 0, 1.0f);
-        }
+        soundEffects.play(SoundEffects.Effect.HIT);
     }
 
     /**
      * レベルアップ効果音を再生する。
      */
     public void playLevelUpSound() {
-        if (soundPool != null) {
-            soundPool.play(levelUpSoundId, 1.0f, 1.0f, 1, 0, 1.0f);
-        }
+        soundEffects.play(SoundEffects.Effect.LEVEL_UP);
     }
 
     // --- ライフサイクル対応 ---
 
     public void onPause() {
-        if (mpMenu != null) mpMenu.pause();
-        if (mpGame != null) mpGame.pause();
-        if (mpGameOver != null) mpGameOver.pause();
-        if (soundPool != null) soundPool.autoPause();
+        pauseBGM();
+        soundEffects.onPause();
     }
 
     public void onResume() {
-        if (soundPool != null) soundPool.autoResume();
+        soundEffects.onResume();
     }
 
     public void release() {
-        if (mpMenu != null) { mpMenu.release(); mpMenu = null; }
-        if (mpGame != null) { mpGame.release(); mpGame = null; }
-        if (mpGameOver != null) { mpGameOver.release(); mpGameOver = null; }
-        if (soundPool != null) { soundPool.release(); soundPool = null; }
+        releaseTrack(current);
+        releaseTrack(prefetched);
+        current = null;
+        prefetched = null;
+        soundEffects.release();
     }
 
     // --- ゲッター ---
 
-    public MediaPlayer getMpMenu() { return mpMenu; }
-    public MediaPlayer getMpGame() { return mpGame; }
-    public MediaPlayer getMpGameOver() { return mpGameOver; }
     public float getCurrentVolume() { return currentVolume; }
 }
\ No newline at end of file
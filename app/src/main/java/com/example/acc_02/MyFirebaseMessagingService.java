@@ -46,7 +46,7 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
 
         NotificationCompat.Builder notificationBuilder =
                 new NotificationCompat.Builder(this, CHANNEL_ID)
-                        .setSmallIcon(R.drawable.hangrider_woman) // アプリのアイコンに変更
+                        .setSmallIcon(R.drawable.ic_notification) // 通知アイコン（単色のベクター）
                         .setContentTitle(title)
                         .setContentText(messageBody)
                         .setAutoCancel(true)
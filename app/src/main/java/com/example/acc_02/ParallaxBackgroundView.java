@@ -0,0 +1,132 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * 背景の雲の画像を、速さの違う2つの層で横に流して描画するビュー。
+ *
+ * 画像はデコード済みのビットマップ（BitmapCache）を BitmapShader として一度だけ設定し、
+ * 横方向は鏡映で繰り返すため継ぎ目が出ない。フレームごとに変わるのはシェーダーの平行移動（Matrix）だけで、
+ * 描画は層ごとの drawRect 1回のため、ビットマップの再描画も、ビュー階層全体の無効化も起きない。
+ *
+ * 流れる量はゲームの経過時間（setGameTime()）で決める。GameManager がスナップショットを反映するときにだけ呼ぶため、
+ * 一時停止中やメニューでは呼ばれず、背景も止まって描画のコストがかからない。
+ */
+public class ParallaxBackgroundView extends View {
+
+    // 層ごとの流れる速さ (dp/秒)。奥の層ほど遅い
+    private static final float FAR_SPEED_DP = 8.0f;
+    private static final float NEAR_SPEED_DP = 24.0f;
+    // 手前の層は拡大して薄く重ね、奥の層と模様がずれて見えるようにする
+    private static final float NEAR_SCALE = 1.5f;
+    private static final int NEAR_ALPHA = 90;
+    // これより大きく時間が飛んだ場合（新しいゲームの開始など）は流さない
+    private static final long MAX_TIME_STEP_NANOS = 250_000_000L;
+
+    private final Paint farPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Paint nearPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix farMatrix = new Matrix();
+    private final Matrix nearMatrix = new Matrix();
+    private final float farSpeedPx;
+    private final float nearSpeedPx;
+
+    private Bitmap bitmap;
+    private float baseScale = 1.0f;         // 画像でビューの高さを覆う倍率
+    private boolean nearLayerEnabled = true;
+    private float scrollSeconds = 0;        // 流した時間の合計（秒）
+    private long lastGameTimeNanos = -1;
+
+    public ParallaxBackgroundView(Context context) {
+        this(context, null);
+    }
+
+    public ParallaxBackgroundView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        farSpeedPx = FAR_SPEED_DP * density;
+        nearSpeedPx = NEAR_SPEED_DP * density;
+        nearPaint.setAlpha(NEAR_ALPHA);
+    }
+
+    /**
+     * 背景の画像を設定する（表示サイズでデコード済みのもの）。null の場合は何も描画しない。
+     */
+    public void setBitmap(Bitmap bitmap) {
+        this.bitmap = bitmap;
+        if (bitmap != null) {
+            // 縦は端の画素を伸ばし、横は鏡映で繰り返す（位置は層ごとに違うため、シェーダーも層ごとに持つ）
+            farPaint.setShader(new BitmapShader(bitmap, Shader.TileMode.MIRROR, Shader.TileMode.CLAMP));
+            nearPaint.setShader(new BitmapShader(bitmap, Shader.TileMode.MIRROR, Shader.TileMode.CLAMP));
+        } else {
+            farPaint.setShader(null);
+            nearPaint.setShader(null);
+        }
+        updateScale();
+        invalidate();
+    }
+
+    /**
+     * 手前の層の表示を切り替える（品質段階が低いときは奥の層だけにして塗る面積を半分にする）。
+     */
+    public void setNearLayerEnabled(boolean enabled) {
+        if (nearLayerEnabled == enabled) return;
+        nearLayerEnabled = enabled;
+        invalidate();
+    }
+
+    /**
+     * ゲームの経過時間を渡し、前回からの差の分だけ背景を流す（UIスレッド）。
+     * @param elapsedNanos ゲームのシミュレーション時間（一時停止中は進まない）
+     */
+    public void setGameTime(long elapsedNanos) {
+        final long last = lastGameTimeNanos;
+        lastGameTimeNanos = elapsedNanos;
+        final long delta = elapsedNanos - last;
+        if (last < 0 || delta <= 0 || delta > MAX_TIME_STEP_NANOS) return;
+        scrollSeconds += delta / 1_000_000_000f;
+        invalidate(); // このビューの描画（drawRect 2回）だけを記録し直す
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateScale();
+    }
+
+    private void updateScale() {
+        if (bitmap == null || getHeight() == 0) return;
+        baseScale = Math.max(getWidth() / (float) bitmap.getWidth(), getHeight() / (float) bitmap.getHeight());
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (bitmap == null) return;
+        drawLayer(canvas, farMatrix, farPaint, baseScale, farSpeedPx);
+        if (nearLayerEnabled) {
+            drawLayer(canvas, nearMatrix, nearPaint, baseScale * NEAR_SCALE, nearSpeedPx);
+        }
+    }
+
+    /**
+     * 流した時間から層のシェーダーの位置を求めてビュー全体を塗る。
+     * 位置は鏡映の繰り返しの周期（画像の幅の2倍）で折り返し、値を小さく保つ。縦は中央に合わせる。
+     */
+    private void drawLayer(Canvas canvas, Matrix matrix, Paint paint, float scale, float speedPx) {
+        final float period = bitmap.getWidth() * scale * 2.0f;
+        final float offsetX = -((scrollSeconds * speedPx) % period);
+        final float offsetY = (getHeight() - bitmap.getHeight() * scale) / 2.0f;
+        matrix.setScale(scale, scale);
+        matrix.postTranslate(offsetX, offsetY);
+        paint.getShader().setLocalMatrix(matrix);
+        canvas.drawRect(0, 0, getWidth(), getHeight(), paint);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.example.acc_02.engine.QualityGovernor;
+import com.google.firebase.remoteconfig.FirebaseRemoteConfig;
+
+import java.util.Collection;
+import java.util.function.LongConsumer;
+
+/**
+ * プレイ中のUIスレッドのフレーム時間と端末の温度状態を監視し、演出の品質段階を切り替えるクラス。
+ *
+ * 段階の判定（しきい値とヒステリシス）は QualityGovernor が行い、このクラスは計測と通知のみを行う。
+ * フレーム時間は Playing 状態の間だけ UIスレッドの Choreographer で計測する（GameStateMachine が start/stop する）。
+ * 計測したフレーム間隔は setFrameObserver() で渡した先（分析の集計）にも通知する。
+ * 温度状態は PowerManager の温度状態リスナー（Android 10 以降）から受け取る。
+ * しきい値は Remote Config の quality_* キーで調整でき、fromRemoteConfig() で読み取る。
+ * すべての操作はUIスレッドで行うこと。
+ */
+public class QualityManager {
+
+    private static final String TAG = "QualityManager";
+
+    // Remote Config のキー
+    private static final String DEGRADE_FRAME_MS = "quality_degrade_frame_ms";
+    private static final String RECOVER_FRAME_MS = "quality_recover_frame_ms";
+    private static final String WINDOW_FRAMES = "quality_window_frames";
+    private static final String RECOVER_WINDOWS = "quality_recover_windows";
+    private static final String[] KEYS = { DEGRADE_FRAME_MS, RECOVER_FRAME_MS, WINDOW_FRAMES, RECOVER_WINDOWS };
+
+    /** 段階が変わったときの通知先（UIスレッドで呼ばれる） */
+    public interface Listener {
+        void onQualityTierChanged(int tier);
+    }
+
+    private final QualityGovernor governor = new QualityGovernor();
+    private final Listener listener;
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Choreographer.FrameCallback frameCallback = this::onFrame;
+    private final PowerManager powerManager;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private LongConsumer frameObserver;
+    private long lastFrameNanos = 0;
+    private boolean isRunning = false;
+
+    public QualityManager(Context context, Listener listener) {
+        this.listener = listener;
+        this.powerManager = context.getSystemService(PowerManager.class);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && powerManager != null) {
+            // 登録時に現在の状態が通知される
+            thermalListener = this::onThermalStatusChanged;
+            powerManager.addThermalStatusListener(thermalListener);
+        }
+    }
+
+    /**
+     * フレーム時間の計測を開始する（Playing 状態に入るとき）。停止していた間の間隔は数えない。
+     */
+    public void start() {
+        if (isRunning) return;
+        isRunning = true;
+        governor.resetFrames();
+        lastFrameNanos = 0;
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    /**
+     * フレーム時間の計測を停止する。段階はそのまま保つ。
+     */
+    public void stop() {
+        isRunning = false;
+        choreographer.removeFrameCallback(frameCallback);
+    }
+
+    /** 現在の段階（QualityGovernor.TIER_*） */
+    public int getTier() {
+        return governor.getTier();
+    }
+
+    /**
+     * 判定のしきい値を差し替える（Remote Config の有効化のたび）。
+     */
+    public void setThresholds(QualityGovernor.Thresholds thresholds) {
+        governor.setThresholds(thresholds);
+    }
+
+    /**
+     * 計測中のフレームごとに、前のフレームからの間隔 (ns) を受け取る先を設定する。
+     */
+    public void setFrameObserver(LongConsumer observer) {
+        this.frameObserver = observer;
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (!isRunning) return;
+        if (frameObserver != null && lastFrameNanos != 0) {
+            frameObserver.accept(frameTimeNanos - lastFrameNanos);
+        }
+        lastFrameNanos = frameTimeNanos;
+        if (governor.onFrame(frameTimeNanos)) {
+            notifyTier("frame time");
+        }
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    private void onThermalStatusChanged(int status) {
+        if (governor.setThermalStatus(status)) {
+            notifyTier("thermal status " + status);
+        }
+    }
+
+    private void notifyTier(String reason) {
+        int tier = governor.getTier();
+        Log.i(TAG, "Quality tier " + tier + " (" + reason + ")");
+        listener.onQualityTierChanged(tier);
+    }
+
+    /**
+     * 計測を止め、温度状態リスナーを解除する。MainActivityのonDestroyから呼ばれることを想定。
+     */
+    public void release() {
+        stop();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && thermalListener != null) {
+            powerManager.removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+    }
+
+    /**
+     * 有効化されている Remote Config の値からしきい値を作る。値がない、または数値でない項目は既定値を使う。
+     */
+    public static QualityGovernor.Thresholds fromRemoteConfig(FirebaseRemoteConfig config) {
+        QualityGovernor.Thresholds base = QualityGovernor.Thresholds.DEFAULT;
+        return new QualityGovernor.Thresholds(
+                (float) RemoteConfigValues.getDouble(config, DEGRADE_FRAME_MS, base.degradeFrameMillis),
+                (float) RemoteConfigValues.getDouble(config, RECOVER_FRAME_MS, base.recoverFrameMillis),
+                (int) RemoteConfigValues.getDouble(config, WINDOW_FRAMES, base.windowFrames),
+                (int) RemoteConfigValues.getDouble(config, RECOVER_WINDOWS, base.recoverWindows));
+    }
+
+    /**
+     * 更新されたキーに品質のしきい値が含まれるかどうか。
+     */
+    public static boolean isAffectedBy(Collection<String> updatedKeys) {
+        for (String key : KEYS) {
+            if (updatedKeys.contains(key)) return true;
+        }
+        return false;
+    }
+}
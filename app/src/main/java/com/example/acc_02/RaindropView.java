@@ -0,0 +1,148 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.example.acc_02.engine.RaindropPool;
+
+/**
+ * すべての雨粒を1枚のビューにまとめて描画するクラス。
+ * 雨粒ごとにImageViewを生成せず、スプライトアトラスの雨粒の領域を1回のonDrawで描き切る。
+ * 雨粒の生成/削除でビュー階層（addView/removeView）には一切触れない。
+ */
+public class RaindropView extends View {
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private Bitmap raindropBitmap; // アトラス画像
+    private Rect raindropRegion;   // アトラス上の雨粒の領域
+    private final RectF drawRect = new RectF(); // 描画時に使い回す矩形
+    private RaindropPool raindrops;
+    private float interpolation = 1.0f; // 前ステップ(0)〜現ステップ(1)の補間係数
+    private int maxVisibleDrops = Integer.MAX_VALUE; // 描画する雨粒の上限（品質段階による）
+    private float[] visibleYs = new float[RaindropPool.DEFAULT_CAPACITY]; // 上限の判定に使い回す作業領域
+
+    public RaindropView(Context context) {
+        this(context, null);
+    }
+
+    public RaindropView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    /**
+     * 全ての雨粒で共有するスプライトを設定する。
+     * @param sprite SpriteAtlasIndex の定数
+     */
+    public void setSprite(SpriteAtlas atlas, int sprite) {
+        this.raindropBitmap = atlas.getBitmap();
+        this.raindropRegion = atlas.getRegion(sprite);
+        invalidate();
+    }
+
+    /**
+     * 描画対象の雨粒プールを設定する（GameManagerが公開したスナップショットのプールを参照する）。
+     * null の場合は何も描画しない。
+     */
+    public void setRaindrops(RaindropPool raindrops) {
+        if (this.raindrops == raindrops) return;
+        this.raindrops = raindrops;
+        invalidate();
+    }
+
+    /**
+     * 描画時の補間係数を設定する。
+     * @param alpha 0.0f で前ステップの位置、1.0f で現ステップの位置
+     */
+    public void setInterpolation(float alpha) {
+        this.interpolation = alpha;
+    }
+
+    /**
+     * 描画する雨粒の数の上限を設定する。上限を超えた場合は、プレイヤーに近い（画面の下にある）雨粒から描画し、
+     * 出現したばかりの上の方の雨粒は下りてくるまで描画しない。当たり判定には影響しない。
+     */
+    public void setMaxVisibleDrops(int max) {
+        this.maxVisibleDrops = Math.max(0, max);
+        invalidate();
+    }
+
+    /**
+     * 次のフレームで再描画を要求する。
+     */
+    public void requestRender() {
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (raindrops == null || raindropBitmap == null) return;
+
+        // 1回の描画パスで全雨粒を描画
+        final float[] xs = raindrops.x;
+        final float[] ys = raindrops.y;
+        final float[] prevYs = raindrops.prevY;
+        final float alpha = interpolation;
+        final float[] ws = raindrops.w;
+        final float[] hs = raindrops.h;
+        final int n = raindrops.size();
+        int budget = maxVisibleDrops;
+        final float minY = n > budget ? visibleCutoff(n, budget) : -Float.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            float y = prevYs[i] + (ys[i] - prevYs[i]) * alpha;
+            if (y < minY) continue;
+            if (--budget < 0) break; // 境界と同じ位置の雨粒が複数ある場合
+            drawRect.set(xs[i], y, xs[i] + ws[i], y + hs[i]);
+            canvas.drawBitmap(raindropBitmap, raindropRegion, drawRect, paint);
+        }
+    }
+
+    /**
+     * 描画する雨粒の上端の位置の下限（下から count 番目の雨粒の位置）を求める。
+     */
+    private float visibleCutoff(int n, int count) {
+        if (count == 0) return Float.MAX_VALUE;
+        if (visibleYs.length < n) visibleYs = new float[n];
+        final float[] values = visibleYs;
+        final float[] ys = raindrops.y;
+        final float[] prevYs = raindrops.prevY;
+        final float alpha = interpolation;
+        for (int i = 0; i < n; i++) {
+            values[i] = prevYs[i] + (ys[i] - prevYs[i]) * alpha;
+        }
+        // 大きい順で count 番目の値を選択する（クイックセレクト。並べ替えはしない）
+        final int k = count - 1;
+        int left = 0;
+        int right = n - 1;
+        while (left < right) {
+            final float pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] > pivot) i++;
+                while (values[j] < pivot) j--;
+                if (i <= j) {
+                    float t = values[i];
+                    values[i] = values[j];
+                    values[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.acc_02;
+
+import android.util.Log;
+
+import com.google.firebase.remoteconfig.FirebaseRemoteConfig;
+import com.google.firebase.remoteconfig.FirebaseRemoteConfigValue;
+
+/**
+ * 有効化されている Remote Config の値を型付きで読み取る。
+ * 値がない（既定値も設定されていない）、または数値として読めない項目は fallback を返す。
+ */
+final class RemoteConfigValues {
+
+    private static final String TAG = "RemoteConfig";
+
+    private RemoteConfigValues() {
+    }
+
+    static long getLong(FirebaseRemoteConfig config, String key, long fallback) {
+        FirebaseRemoteConfigValue value = config.getValue(key);
+        if (value.getSource() == FirebaseRemoteConfig.VALUE_SOURCE_STATIC) return fallback;
+        try {
+            return value.asLong();
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid value for " + key + ": " + value.asString());
+            return fallback;
+        }
+    }
+
+    static double getDouble(FirebaseRemoteConfig config, String key, double fallback) {
+        FirebaseRemoteConfigValue value = config.getValue(key);
+        if (value.getSource() == FirebaseRemoteConfig.VALUE_SOURCE_STATIC) return fallback;
+        try {
+            return value.asDouble();
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid value for " + key + ": " + value.asString());
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.acc_02.engine.Difficulty;
+import com.example.acc_02.engine.RunHistory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * プレイの記録（RunHistory）を専用スレッドで読み書きし、統計をUIスレッドへ渡すクラス。
+ *
+ * 記録ファイルを開く（索引を作る）のも追記も専用スレッドで行い、record() はすぐに戻る。
+ * 開いたとき、および追記のたびに統計（Stats）を作り直して公開するため、
+ * 統計画面は getStats() で最新の統計をそのまま表示できる（ファイルを読まない）。
+ */
+public class RunHistoryManager {
+
+    private static final String TAG = "RunHistory";
+    private static final String FILE_NAME = "run_history.bin";
+
+    /** 統計画面に表示する内容（変更しない） */
+    public static final class Stats {
+        public static final Stats EMPTY = new Stats();
+
+        public final int totalRuns;
+        public final List<RunHistory.Run> topRuns;   // すべての難易度の上位
+        // 以下は [Difficulty の ordinal]
+        public final int[] runCounts;
+        public final int[] bestScores;               // 記録がない場合は -1
+        public final float[] averageScores;
+        public final float[] recentAverageScores;    // 直近 RunHistory.RECENT_WINDOW 件
+
+        private Stats() {
+            final int n = Difficulty.values().length;
+            totalRuns = 0;
+            topRuns = Collections.emptyList();
+            runCounts = new int[n];
+            bestScores = new int[n];
+            Arrays.fill(bestScores, -1);
+            averageScores = new float[n];
+            recentAverageScores = new float[n];
+        }
+
+        private Stats(RunHistory history) {
+            final Difficulty[] difficulties = Difficulty.values();
+            totalRuns = history.size();
+            topRuns = Collections.unmodifiableList(history.getTopRuns(null));
+            runCounts = new int[difficulties.length];
+            bestScores = new int[difficulties.length];
+            averageScores = new float[difficulties.length];
+            recentAverageScores = new float[difficulties.length];
+            for (Difficulty d : difficulties) {
+                runCounts[d.ordinal()] = history.getRunCount(d);
+                bestScores[d.ordinal()] = history.getBestScore(d);
+                averageScores[d.ordinal()] = history.getAverageScore(d);
+                recentAverageScores[d.ordinal()] = history.getRecentAverageScore(d);
+            }
+        }
+    }
+
+    private final HandlerThread thread;
+    private final Handler handler;
+    private RunHistory history; // 専用スレッドのみ（開けなかった場合は null）
+    private volatile Stats stats = Stats.EMPTY;
+
+    public RunHistoryManager(Context context) {
+        final File file = new File(context.getFilesDir(), FILE_NAME);
+        thread = new HandlerThread("RunHistory", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        handler.post(() -> {
+            try {
+                history = RunHistory.open(file);
+                stats = new Stats(history);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to open " + file, e);
+            }
+        });
+    }
+
+    /**
+     * 1回のプレイを記録する（専用スレッドで追記し、すぐに戻る）。
+     */
+    public void record(int score, int level, long durationMillis, Difficulty difficulty, long seed) {
+        final long endedAt = System.currentTimeMillis();
+        handler.post(() -> {
+            if (history == null) return;
+            try {
+                history.append(score, level, durationMillis, difficulty, seed, endedAt);
+                stats = new Stats(history);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to append run", e);
+            }
+        });
+    }
+
+    /**
+     * 最新の統計を返す（どのスレッドからでも呼べる。読み込みが終わるまでは空の統計）。
+     */
+    public Stats getStats() {
+        return stats;
+    }
+
+    /**
+     * 記録ファイルを閉じて専用スレッドを終了する。MainActivityのonDestroyから呼ばれることを想定。
+     */
+    public void release() {
+        handler.post(() -> {
+            if (history == null) return;
+            try {
+                history.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close run history", e);
+            }
+            history = null;
+        });
+        thread.quitSafely();
+    }
+}
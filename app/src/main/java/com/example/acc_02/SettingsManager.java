@@ -2,83 +2,192 @@ package com.example.acc_02;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 // SettingsManager.java
 
+/**
+ * 設定とハイスコアを保持し、永続化するクラス。
+ *
+ * 読み込みはコンストラクタで専用スレッドに任せ、値はメモリ上のものを返す（読み込み前に値を取得した場合のみ、読み込みを待つ）。
+ * 変更は項目ごとの変更フラグに記録し、FLUSH_DELAY_MS の間に続いた変更をまとめて、
+ * 変更された項目だけを専用スレッドで1回の commit で書き込む。onPause では flush() で直ちに書き込む。
+ */
 public class SettingsManager {
+    private static final String TAG = "SettingsManager";
     private static final String PREF_NAME = "game_settings";
     private static final String KEY_HIGH_SCORE = "high_score";
     private static final String KEY_VOLUME = "volume";
     private static final String KEY_VIBRATION_ON = "vibration_on";
     private static final String KEY_TUTORIAL_SHOWN = "tutorial_shown";
 
+    // 変更フラグ
+    private static final int DIRTY_HIGH_SCORE = 1;
+    private static final int DIRTY_VOLUME = 1 << 1;
+    private static final int DIRTY_VIBRATION_ON = 1 << 2;
+    private static final int DIRTY_TUTORIAL_SHOWN = 1 << 3;
+
+    /** 最後の変更から書き込みまでの待ち時間（音量スライダーの操作などをまとめる） */
+    private static final long FLUSH_DELAY_MS = 500;
+
+    private final ScheduledExecutorService executor;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    // 以下は読み込み後、ロック（this）で保護する
     private SharedPreferences prefs;
     private int highScore;
     private float currentVolume;
     private boolean vibrationOn;
     private boolean tutorialShown;
+    private int dirty = 0;
+    private ScheduledFuture<?> pendingFlush;
 
+    /**
+     * 設定の読み込みを開始する。レイアウトの読み込みなどと並行して進むよう、onCreate のできるだけ早い時点で生成すること。
+     */
     public SettingsManager(Context context) {
-        prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        loadSettings();
+        final Context appContext = context.getApplicationContext();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1,
+                r -> new Thread(r, "Settings"));
+        pool.setRemoveOnCancelPolicy(true);
+        executor = pool;
+        executor.execute(() -> {
+            loadSettings(appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE));
+            loaded.countDown();
+        });
     }
 
-    private void loadSettings() {
+    /**
+     * 専用スレッドで呼ばれる。値は loaded を通じて他のスレッドから見えるため、ロックは取らない
+     * （ロックを保持したまま読み込みを待つ呼び出し元とデッドロックしないように）。
+     */
+    private void loadSettings(SharedPreferences prefs) {
+        this.prefs = prefs;
         highScore = prefs.getInt(KEY_HIGH_SCORE, 0);
         currentVolume = prefs.getFloat(KEY_VOLUME, 0.5f); // デフォルト音量 50%
         vibrationOn = prefs.getBoolean(KEY_VIBRATION_ON, true); // デフォルトで振動ON
         tutorialShown = prefs.getBoolean(KEY_TUTORIAL_SHOWN, false); // ★追加: デフォルトでチュートリアル未表示
     }
 
-    public void saveSettings() {
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(KEY_HIGH_SCORE, highScore);
-        editor.putFloat(KEY_VOLUME, currentVolume);
-        editor.putBoolean(KEY_VIBRATION_ON, vibrationOn);
-        editor.putBoolean(KEY_TUTORIAL_SHOWN, tutorialShown); // ★追加: チュートリアル状態を保存
-        editor.apply();
+    /**
+     * 読み込みが終わっていなければ待つ。
+     */
+    private void awaitLoaded() {
+        if (loaded.getCount() == 0) return;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
     }
 
-    public int getHighScore() {
-        return highScore;
+    /**
+     * 項目を変更済みにし、FLUSH_DELAY_MS 後の書き込みを予約する（予約済みの場合は延長する）。
+     * ロックを保持して呼ぶこと。
+     */
+    private void markDirty(int flag) {
+        dirty |= flag;
+        if (pendingFlush != null) pendingFlush.cancel(false);
+        pendingFlush = executor.schedule(this::writeDirty, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
     }
 
-    public void saveHighScore(int newScore) {
-        if (newScore > highScore) {
-            this.highScore = newScore;
-            saveSettings(); // ハイスコア更新時は設定を保存
+    /**
+     * 未保存の変更を直ちに専用スレッドで書き込む。MainActivityのonPauseから呼ばれることを想定。
+     */
+    public synchronized void flush() {
+        if (dirty == 0) return;
+        if (pendingFlush != null) pendingFlush.cancel(false);
+        pendingFlush = null;
+        executor.execute(this::writeDirty);
+    }
+
+    /**
+     * 未保存の変更を書き込んで専用スレッドを終了する。MainActivityのonDestroyから呼ばれることを想定。
+     */
+    public void release() {
+        flush();
+        executor.shutdown();
+    }
+
+    /**
+     * 変更された項目だけを1回の commit で書き込む（専用スレッド）。
+     */
+    private void writeDirty() {
+        SharedPreferences.Editor editor;
+        synchronized (this) {
+            if (dirty == 0) return;
+            editor = prefs.edit();
+            if ((dirty & DIRTY_HIGH_SCORE) != 0) editor.putInt(KEY_HIGH_SCORE, highScore);
+            if ((dirty & DIRTY_VOLUME) != 0) editor.putFloat(KEY_VOLUME, currentVolume);
+            if ((dirty & DIRTY_VIBRATION_ON) != 0) editor.putBoolean(KEY_VIBRATION_ON, vibrationOn);
+            if ((dirty & DIRTY_TUTORIAL_SHOWN) != 0) editor.putBoolean(KEY_TUTORIAL_SHOWN, tutorialShown); // ★追加: チュートリアル状態を保存
+            dirty = 0;
+            pendingFlush = null;
+        }
+        if (!editor.commit()) {
+            Log.w(TAG, "Failed to write settings");
         }
     }
 
-    public void loadHighScore() {
-        this.highScore = prefs.getInt(KEY_HIGH_SCORE, 0);
+    public synchronized int getHighScore() {
+        awaitLoaded();
+        return highScore;
     }
 
+    public synchronized void saveHighScore(int newScore) {
+        awaitLoaded();
+        if (newScore > highScore) {
+            this.highScore = newScore;
+            markDirty(DIRTY_HIGH_SCORE); // ハイスコア更新時は設定を保存
+        }
+    }
 
-    public float getCurrentVolume() {
+    public synchronized float getCurrentVolume() {
+        awaitLoaded();
         return currentVolume;
     }
 
-    public void setCurrentVolume(float currentVolume) {
+    public synchronized void setCurrentVolume(float currentVolume) {
+        awaitLoaded();
+        if (this.currentVolume == currentVolume) return;
         this.currentVolume = currentVolume;
+        markDirty(DIRTY_VOLUME);
     }
 
-    public boolean isVibrationOn() {
+    public synchronized boolean isVibrationOn() {
+        awaitLoaded();
         return vibrationOn;
     }
 
-    public void setVibrationOn(boolean vibrationOn) {
+    public synchronized void setVibrationOn(boolean vibrationOn) {
+        awaitLoaded();
+        if (this.vibrationOn == vibrationOn) return;
         this.vibrationOn = vibrationOn;
+        markDirty(DIRTY_VIBRATION_ON);
     }
 
     // チュートリアル表示状態のゲッター
-    public boolean isTutorialShown() {
+    public synchronized boolean isTutorialShown() {
+        awaitLoaded();
         return tutorialShown;
     }
 
     // チュートリアル表示状態のセッター
-    public void setTutorialShown(boolean shown) {
+    public synchronized void setTutorialShown(boolean shown) {
+        awaitLoaded();
+        if (this.tutorialShown == shown) return;
         this.tutorialShown = shown;
-        saveSettings(); // チュートリアル状態変更時は設定を保存
+        markDirty(DIRTY_TUTORIAL_SHOWN); // チュートリアル状態変更時は設定を保存
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,213 @@
+package com.example.acc_02;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 効果音を専用スレッドで再生するクラス。
+ *
+ * play() は要求をビットマスクに立てるだけで、どのスレッドからでもすぐに戻る。
+ * 専用スレッドがまとめて取り出して SoundPool に渡すため、同じ効果音の要求が
+ * 取り出しまでに何回来ても1回の再生になる（さらに MIN_INTERVAL_MS 以内の連続再生は間引く）。
+ *
+ * 読み込みが終わっていない効果音の要求は保留し、読み込み完了時に MAX_DEFER_MS 以内の要求だけ再生する。
+ * 同時に鳴らす数は効果音ごとの上限（maxVoices）と全体の上限（MAX_STREAMS）で制限し、
+ * 上限を超えた場合は同じ効果音の古い再生、または優先度の低い再生から止める。
+ */
+public class SoundEffects {
+
+    private static final String TAG = "SoundEffects";
+
+    /** 同時に鳴らせる効果音の数 */
+    private static final int MAX_STREAMS = 5;
+    /** 同じ効果音を続けて鳴らす最小の間隔（約1フレーム） */
+    private static final long MIN_INTERVAL_MS = 16;
+    /** 読み込み待ちの要求を再生する期限（これより古い要求は捨てる） */
+    private static final long MAX_DEFER_MS = 300;
+
+    /** 効果音の種類 */
+    public enum Effect {
+        CLICK(R.raw.click_sound, 1, 2),
+        HIT(R.raw.hit_sound, 2, 2),
+        LEVEL_UP(R.raw.levelup_sound, 3, 1);
+
+        final int resId;
+        final int priority;  // SoundPool の優先度（大きいほど後から止められる）
+        final int maxVoices; // この効果音を同時に鳴らす数の上限
+        final int bit = 1 << ordinal();
+
+        Effect(int resId, int priority, int maxVoices) {
+            this.resId = resId;
+            this.priority = priority;
+            this.maxVoices = maxVoices;
+        }
+    }
+
+    private static final Effect[] EFFECTS = Effect.values();
+
+    private final Context context;
+    private final HandlerThread thread;
+    private final Handler handler;
+
+    /** 再生を要求された効果音（Effect.bit の集合）。play() が立て、専用スレッドが取り出す */
+    private final AtomicInteger requested = new AtomicInteger();
+    private final Runnable drain = this::drainRequests;
+
+    // --- 以下は専用スレッドのみで使用 ---
+    private SoundPool soundPool;
+    private final int[] soundIds = new int[EFFECTS.length];
+    private int loadedMask = 0;
+    private int deferredMask = 0;
+    private final long[] requestedAt = new long[EFFECTS.length];
+    private final long[] lastPlayedAt = new long[EFFECTS.length];
+    /** 再生中（の可能性がある）ストリーム。古い順 */
+    private final int[] streamIds = new int[MAX_STREAMS];
+    private final Effect[] streamEffects = new Effect[MAX_STREAMS];
+    private int streamCount = 0;
+
+    public SoundEffects(Context context) {
+        this.context = context.getApplicationContext();
+        thread = new HandlerThread("SoundEffects", Process.THREAD_PRIORITY_AUDIO);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        // 読み込み完了の通知を専用スレッドで受け取るため、SoundPool は専用スレッドで作る
+        handler.post(this::load);
+    }
+
+    /**
+     * 効果音の再生を要求する。どのスレッドからでも呼べる。
+     */
+    public void play(Effect effect) {
+        int previous = requested.getAndUpdate(mask -> mask | effect.bit);
+        if (previous == 0) {
+            handler.post(drain);
+        }
+    }
+
+    public void onPause() {
+        handler.post(() -> {
+            if (soundPool != null) soundPool.autoPause();
+        });
+    }
+
+    public void onResume() {
+        handler.post(() -> {
+            if (soundPool != null) soundPool.autoResume();
+        });
+    }
+
+    /**
+     * SoundPool を解放し、専用スレッドを終了する。
+     */
+    public void release() {
+        handler.post(() -> {
+            if (soundPool != null) {
+                soundPool.release();
+                soundPool = null;
+            }
+        });
+        thread.quitSafely();
+    }
+
+    // =========================================================================================
+    // 専用スレッド
+    // =========================================================================================
+
+    private void load() {
+        soundPool = new SoundPool.Builder()
+                .setMaxStreams(MAX_STREAMS)
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_GAME)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build())
+                .build();
+        soundPool.setOnLoadCompleteListener(this::onLoadComplete);
+        for (Effect effect : EFFECTS) {
+            soundIds[effect.ordinal()] = soundPool.load(context, effect.resId, 1);
+        }
+    }
+
+    private void onLoadComplete(SoundPool pool, int sampleId, int status) {
+        for (Effect effect : EFFECTS) {
+            if (soundIds[effect.ordinal()] != sampleId) continue;
+            if (status != 0) {
+                Log.e(TAG, "Failed to load " + effect + " (status " + status + ")");
+                return;
+            }
+            loadedMask |= effect.bit;
+            if ((deferredMask & effect.bit) != 0) {
+                deferredMask &= ~effect.bit;
+                if (SystemClock.uptimeMillis() - requestedAt[effect.ordinal()] <= MAX_DEFER_MS) {
+                    playNow(effect, SystemClock.uptimeMillis());
+                }
+            }
+            return;
+        }
+    }
+
+    private void drainRequests() {
+        int mask = requested.getAndSet(0);
+        if (soundPool == null) return;
+        final long now = SystemClock.uptimeMillis();
+        // 優先度の高い効果音から鳴らす（全体の上限に達したときに低いものが止められるように）
+        for (int i = EFFECTS.length - 1; i >= 0; i--) {
+            Effect effect = EFFECTS[i];
+            if ((mask & effect.bit) == 0) continue;
+            if ((loadedMask & effect.bit) == 0) {
+                deferredMask |= effect.bit;
+                requestedAt[i] = now;
+                continue;
+            }
+            if (now - lastPlayedAt[i] < MIN_INTERVAL_MS) continue;
+            playNow(effect, now);
+        }
+    }
+
+    private void playNow(Effect effect, long now) {
+        // この効果音の上限に達していれば、最も古い再生を止める
+        int voices = 0;
+        for (int i = 0; i < streamCount; i++) {
+            if (streamEffects[i] == effect) voices++;
+        }
+        if (voices >= effect.maxVoices) {
+            for (int i = 0; i < streamCount; i++) {
+                if (streamEffects[i] == effect) {
+                    soundPool.stop(streamIds[i]);
+                    removeStream(i);
+                    break;
+                }
+            }
+        }
+
+        int streamId = soundPool.play(soundIds[effect.ordinal()], 1.0f, 1.0f, effect.priority, 0, 1.0f);
+        if (streamId == 0) return; // より優先度の高い再生で埋まっている
+        lastPlayedAt[effect.ordinal()] = now;
+
+        // 全体の上限を超えた場合、SoundPool は優先度の低い（同じなら古い）再生を止めるため、記録も同じものを捨てる
+        if (streamCount == MAX_STREAMS) {
+            int lowest = 0;
+            for (int i = 1; i < streamCount; i++) {
+                if (streamEffects[i].priority < streamEffects[lowest].priority) lowest = i;
+            }
+            removeStream(lowest);
+        }
+        streamIds[streamCount] = streamId;
+        streamEffects[streamCount] = effect;
+        streamCount++;
+    }
+
+    private void removeStream(int index) {
+        streamCount--;
+        System.arraycopy(streamIds, index + 1, streamIds, index, streamCount - index);
+        System.arraycopy(streamEffects, index + 1, streamEffects, index, streamCount - index);
+        streamEffects[streamCount] = null;
+    }
+}
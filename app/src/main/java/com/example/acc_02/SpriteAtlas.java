@@ -0,0 +1,77 @@
+package com.example.acc_02;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
+import android.graphics.Rect;
+import android.os.Build;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * ゲーム内のスプライトをまとめたアトラス画像と、その領域を扱うクラス。
+ *
+ * アトラス画像と領域の一覧 (SpriteAtlasIndex) はビルド時に packSpriteAtlas タスクが
+ * src/main/sprites から生成する。アトラスは1回だけ読み込み（可能ならハードウェアビットマップ）、
+ * すべてのスプライトを同じテクスチャから描画するため、スプライトごとのアップロードや切り替えが発生しない。
+ * assets の画像は密度による拡大を受けないため、元の解像度のまま読み込まれる。
+ */
+public class SpriteAtlas {
+
+    private final Bitmap bitmap;
+    private final Rect[] regions = new Rect[SpriteAtlasIndex.COUNT];
+
+    private SpriteAtlas(Bitmap bitmap) {
+        this.bitmap = bitmap;
+        final int[] r = SpriteAtlasIndex.REGIONS;
+        for (int i = 0; i < regions.length; i++) {
+            int x = r[i * 4];
+            int y = r[i * 4 + 1];
+            regions[i] = new Rect(x, y, x + r[i * 4 + 2], y + r[i * 4 + 3]);
+        }
+    }
+
+    /**
+     * assets からアトラスを読み込む。
+     */
+    public static SpriteAtlas load(AssetManager assets) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            ImageDecoder.Source source = ImageDecoder.createSource(assets, SpriteAtlasIndex.ASSET_PATH);
+            return new SpriteAtlas(ImageDecoder.decodeBitmap(source,
+                    (decoder, info, src) -> decoder.setAllocator(ImageDecoder.ALLOCATOR_DEFAULT)));
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.HARDWARE;
+        try (InputStream in = assets.open(SpriteAtlasIndex.ASSET_PATH)) {
+            Bitmap bitmap = BitmapFactory.decodeStream(in, null, options);
+            if (bitmap == null) throw new IOException("Failed to decode " + SpriteAtlasIndex.ASSET_PATH);
+            return new SpriteAtlas(bitmap);
+        }
+    }
+
+    public Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * スプライトのアトラス上の領域（変更しないこと）。
+     * @param sprite SpriteAtlasIndex の定数
+     */
+    public Rect getRegion(int sprite) {
+        return regions[sprite];
+    }
+
+    /**
+     * スプライトを表示する Drawable を作る（ImageView 用）。ビットマップはアトラスと共有する。
+     */
+    public AtlasRegionDrawable newDrawable(int sprite) {
+        return new AtlasRegionDrawable(bitmap, regions[sprite]);
+    }
+
+    /** アトラス画像のバイト数（ハードウェアビットマップはGPUメモリ上の大きさ） */
+    public long getByteCount() {
+        return bitmap.getAllocationByteCount();
+    }
+}
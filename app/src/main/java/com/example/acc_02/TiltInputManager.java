@@ -0,0 +1,187 @@
+package com.example.acc_02;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import com.example.acc_02.engine.LowPassFilter;
+import com.example.acc_02.engine.OneEuroFilter;
+import com.example.acc_02.engine.TiltFilter;
+import com.example.acc_02.engine.TiltSlot;
+
+/**
+ * 端末の傾きを読み取り、平滑化して TiltSlot へ公開するクラス。
+ *
+ * センサーイベントは専用のバックグラウンドスレッドで受け取り、メインスレッドでは処理しない。
+ * シミュレーションは TiltSlot から最新の値をステップごとに1回だけ読み取ってプレイヤーを動かす。
+ *
+ * センサーは重力センサー > ゲーム用回転ベクトル > 加速度センサー の順に、端末にあるものを使う。
+ * どのセンサーでも出力は重力加速度の成分 (m/s^2) にそろえる。
+ * 高いサンプリングレートで読み取りつつ、ハードウェアのFIFOにためてまとめて受け取る（バッチ処理）ため、
+ * サンプルごとにCPUを起こさずに滑らかな入力が得られる。
+ */
+public class TiltInputManager implements SensorEventListener {
+
+    /** 平滑化の方式 */
+    public enum Filter {
+        LOW_PASS,
+        ONE_EURO
+    }
+
+    // --- 既定値 ---
+    public static final int DEFAULT_SAMPLING_PERIOD_US = 10_000;      // 100Hz
+    public static final int DEFAULT_MAX_REPORT_LATENCY_US = 16_000;   // 約1フレーム分をFIFOにためる
+
+    // --- フィルタのパラメータ ---
+    private static final float LOW_PASS_CUTOFF_HZ = 5.0f;
+    private static final float ONE_EURO_MIN_CUTOFF_HZ = 1.0f;
+    private static final float ONE_EURO_BETA = 0.05f;
+    private static final float ONE_EURO_DERIVATIVE_CUTOFF_HZ = 1.0f;
+
+    private final SensorManager sensorManager;
+    private final Sensor sensor;
+    private final TiltSlot output;
+    private final HandlerThread sensorThread;
+    private final Handler sensorHandler;
+
+    private int samplingPeriodUs = DEFAULT_SAMPLING_PERIOD_US;
+    private int maxReportLatencyUs = DEFAULT_MAX_REPORT_LATENCY_US;
+    // フィルタはセンサースレッドのみが使う（差し替えは volatile で公開する）
+    private volatile TiltFilter filterX;
+    private volatile TiltFilter filterY;
+
+    private volatile boolean isListening = false;
+    private final float[] rotationMatrix = new float[9]; // 回転ベクトルからの変換用（センサースレッド）
+    private final Runnable resetFilters = this::resetFilters;
+    private final Runnable clearOutput = this::clearOutput;
+
+    /**
+     * @param output 平滑化した傾きの公開先
+     */
+    public TiltInputManager(SensorManager sensorManager, TiltSlot output) {
+        this.sensorManager = sensorManager;
+        this.output = output;
+        this.sensor = findTiltSensor(sensorManager);
+        setFilter(Filter.ONE_EURO);
+
+        sensorThread = new HandlerThread("TiltInput", Process.THREAD_PRIORITY_DISPLAY);
+        sensorThread.start();
+        sensorHandler = new Handler(sensorThread.getLooper());
+    }
+
+    /**
+     * 利用できる傾きセンサーを優先順に探す。
+     */
+    private static Sensor findTiltSensor(SensorManager sensorManager) {
+        final int[] preferredTypes = {
+                Sensor.TYPE_GRAVITY,              // 加速度から重力成分だけを取り出したもの（振動の影響が小さい）
+                Sensor.TYPE_GAME_ROTATION_VECTOR, // 地磁気を使わない姿勢
+                Sensor.TYPE_ACCELEROMETER
+        };
+        for (int type : preferredTypes) {
+            Sensor sensor = sensorManager.getDefaultSensor(type);
+            if (sensor != null) return sensor;
+        }
+        return null;
+    }
+
+    /**
+     * サンプリング周期を設定する（計測中の場合は登録し直す）。
+     */
+    public void setSamplingPeriodUs(int samplingPeriodUs) {
+        this.samplingPeriodUs = samplingPeriodUs;
+        restartIfListening();
+    }
+
+    /**
+     * FIFOにためてよい最大の遅延を設定する（0の場合はバッチ処理しない）。
+     */
+    public void setMaxReportLatencyUs(int maxReportLatencyUs) {
+        this.maxReportLatencyUs = maxReportLatencyUs;
+        restartIfListening();
+    }
+
+    public void setFilter(Filter filter) {
+        if (filter == Filter.LOW_PASS) {
+            filterX = new LowPassFilter(LOW_PASS_CUTOFF_HZ);
+            filterY = new LowPassFilter(LOW_PASS_CUTOFF_HZ);
+        } else {
+            filterX = new OneEuroFilter(ONE_EURO_MIN_CUTOFF_HZ, ONE_EURO_BETA, ONE_EURO_DERIVATIVE_CUTOFF_HZ);
+            filterY = new OneEuroFilter(ONE_EURO_MIN_CUTOFF_HZ, ONE_EURO_BETA, ONE_EURO_DERIVATIVE_CUTOFF_HZ);
+        }
+    }
+
+    /**
+     * 傾きの読み取りを開始する。すでに開始している場合は何もしない。
+     */
+    public void start() {
+        if (isListening || sensor == null) return;
+        isListening = true;
+        sensorHandler.post(resetFilters); // 停止前のサンプルの影響を残さない
+        sensorManager.registerListener(this, sensor, samplingPeriodUs, maxReportLatencyUs, sensorHandler);
+    }
+
+    /**
+     * 傾きの読み取りを停止する。停止中は傾きを0として公開する。
+     */
+    public void stop() {
+        if (!isListening) return;
+        isListening = false;
+        sensorManager.unregisterListener(this);
+        sensorHandler.post(clearOutput); // 書き込みはセンサースレッドのみで行う
+    }
+
+    /**
+     * センサースレッドを終了する。MainActivityのonDestroyから呼ばれることを想定。
+     */
+    public void release() {
+        stop();
+        sensorThread.quitSafely();
+    }
+
+    private void resetFilters() {
+        filterX.reset();
+        filterY.reset();
+    }
+
+    private void clearOutput() {
+        output.publish(0, 0);
+    }
+
+    private void restartIfListening() {
+        if (isListening) {
+            stop();
+            start();
+        }
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (!isListening) return;
+
+        float x;
+        float y;
+        if (event.sensor.getType() == Sensor.TYPE_GAME_ROTATION_VECTOR) {
+            // 回転行列の3行目は、端末座標系から見た鉛直上向きの単位ベクトル（重力センサーの値と同じ向き）
+            SensorManager.getRotationMatrixFromVector(rotationMatrix, event.values);
+            x = rotationMatrix[6] * SensorManager.GRAVITY_EARTH;
+            y = rotationMatrix[7] * SensorManager.GRAVITY_EARTH;
+        } else {
+            x = event.values[0];
+            y = event.values[1];
+        }
+
+        // バッチで届いたサンプルも、それぞれのタイムスタンプでフィルタに通す
+        long timestamp = event.timestamp;
+        output.publish(filterX.filter(x, timestamp), filterY.filter(y, timestamp));
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        // 何もしない
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.acc_02.engine;
+
+/**
+ * 分析イベントの送信先（Firebase Analytics、またはテスト用の LocalAnalyticsBackend）。
+ * AnalyticsPipeline のバックグラウンドスレッドから呼ばれる。
+ */
+public interface AnalyticsBackend {
+
+    void send(AnalyticsEvent event);
+}
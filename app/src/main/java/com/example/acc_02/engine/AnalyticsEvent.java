@@ -0,0 +1,48 @@
+package com.example.acc_02.engine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 送信する分析イベント1件（イベント名と、追加した順のパラメータ）。
+ * 値は String / Long / Double のいずれか。作成したスレッドで組み立て、送信キューに渡した後は変更しないこと。
+ */
+public final class AnalyticsEvent {
+
+    private final String name;
+    private final Map<String, Object> params = new LinkedHashMap<>();
+
+    public AnalyticsEvent(String name) {
+        this.name = name;
+    }
+
+    public AnalyticsEvent put(String key, String value) {
+        params.put(key, value);
+        return this;
+    }
+
+    public AnalyticsEvent put(String key, long value) {
+        params.put(key, value);
+        return this;
+    }
+
+    public AnalyticsEvent put(String key, double value) {
+        params.put(key, value);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** パラメータ（読み取り専用） */
+    public Map<String, Object> getParams() {
+        return Collections.unmodifiableMap(params);
+    }
+
+    @Override
+    public String toString() {
+        return name + params;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.acc_02.engine;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分析イベントを Executor（通常はバックグラウンドの1スレッド）へ渡し、送信先へ順に送るキュー。
+ * log() はキューに入れるだけですぐに戻るため、UIスレッドから呼んでもフレームを止めない。
+ * 送信先で例外が起きたイベントは捨て、件数だけを数える（ゲームの動作には影響させない）。
+ */
+public class AnalyticsPipeline {
+
+    private final Executor executor;
+    private final AnalyticsBackend backend;
+    private final AtomicInteger failedEvents = new AtomicInteger();
+
+    public AnalyticsPipeline(Executor executor, AnalyticsBackend backend) {
+        this.executor = executor;
+        this.backend = backend;
+    }
+
+    /**
+     * イベントを送信キューに入れる。
+     */
+    public void log(AnalyticsEvent event) {
+        executor.execute(() -> send(event));
+    }
+
+    private void send(AnalyticsEvent event) {
+        try {
+            backend.send(event);
+        } catch (RuntimeException e) {
+            failedEvents.incrementAndGet();
+        }
+    }
+
+    /** 送信先で失敗して捨てたイベントの数 */
+    public int getFailedEvents() {
+        return failedEvents.get();
+    }
+}
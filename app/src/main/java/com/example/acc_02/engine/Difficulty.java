@@ -0,0 +1,18 @@
+package com.example.acc_02.engine;
+
+/**
+ * 難易度選択画面で選べる難易度。
+ * 雨の発生確率とスコア倍率は Remote Config の "<key>_spawn_chance" / "<key>_multiplier" から決まる。
+ */
+public enum Difficulty {
+    EASY("easy"),
+    NORMAL("normal"),
+    HARD("hard");
+
+    /** Remote Config のキーと分析イベントで使う名前 */
+    public final String key;
+
+    Difficulty(String key) {
+        this.key = key;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.acc_02.engine;
+
+/**
+ * 1つの難易度のパラメータ（変更しない）。GameEngine.startGame() に渡し、ゲーム中はこの値だけを使う。
+ * 範囲外の値はコンストラクタで有効な範囲に丸める。
+ */
+public final class DifficultyProfile {
+
+    /** レベルアップ間隔の上限（秒） */
+    public static final int MAX_LEVEL_UP_INTERVAL_SEC = 120;
+
+    public final int spawnChance;        // 初期の雨の発生確率
+    public final int scoreMultiplier;    // スコア倍率
+    public final float baseRainSpeed;    // 雨粒の初期速度 (px/秒)
+    public final float rainSpeedPerLevel; // レベルごとの速度増加量 (px/秒)
+    public final int levelUpIntervalSec; // レベルアップの間隔（秒）
+    public final int maxSpawnChance;     // レベルアップで上がる発生確率の上限
+
+    public DifficultyProfile(int spawnChance, int scoreMultiplier, float baseRainSpeed, float rainSpeedPerLevel,
+                             int levelUpIntervalSec, int maxSpawnChance) {
+        this.spawnChance = Math.max(0, spawnChance);
+        this.scoreMultiplier = Math.max(0, scoreMultiplier);
+        this.baseRainSpeed = Math.max(0f, baseRainSpeed);
+        this.rainSpeedPerLevel = Math.max(0f, rainSpeedPerLevel);
+        this.levelUpIntervalSec = Math.min(Math.max(1, levelUpIntervalSec), MAX_LEVEL_UP_INTERVAL_SEC);
+        this.maxSpawnChance = Math.max(0, maxSpawnChance);
+    }
+
+    /**
+     * 発生確率と倍率だけを指定し、速度とレベルの上がり方は既定値とする。
+     */
+    public static DifficultyProfile of(int spawnChance, int scoreMultiplier) {
+        return new DifficultyProfile(spawnChance, scoreMultiplier, GameEngine.BASE_RAIN_SPEED,
+                GameEngine.RAIN_SPEED_PER_LEVEL, GameEngine.LEVEL_UP_INTERVAL_SEC, GameEngine.MAX_RAIN_SPAWN_CHANCE);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DifficultyProfile)) return false;
+        DifficultyProfile p = (DifficultyProfile) o;
+        return spawnChance == p.spawnChance && scoreMultiplier == p.scoreMultiplier
+                && Float.compare(baseRainSpeed, p.baseRainSpeed) == 0
+                && Float.compare(rainSpeedPerLevel, p.rainSpeedPerLevel) == 0
+                && levelUpIntervalSec == p.levelUpIntervalSec && maxSpawnChance == p.maxSpawnChance;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = spawnChance;
+        h = 31 * h + scoreMultiplier;
+        h = 31 * h + Float.floatToIntBits(baseRainSpeed);
+        h = 31 * h + Float.floatToIntBits(rainSpeedPerLevel);
+        h = 31 * h + levelUpIntervalSec;
+        return 31 * h + maxSpawnChance;
+    }
+
+    @Override
+    public String toString() {
+        return "DifficultyProfile{spawn=" + spawnChance + " x" + scoreMultiplier
+                + " speed=" + baseRainSpeed + "+" + rainSpeedPerLevel + "/lv"
+                + " interval=" + levelUpIntervalSec + "s cap=" + maxSpawnChance + "}";
+    }
+}
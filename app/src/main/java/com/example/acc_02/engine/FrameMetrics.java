@@ -0,0 +1,146 @@
+package com.example.acc_02.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ゲームループの各フェーズの処理時間と、フレームに関するカウンタを集計するレジストリ。
+ *
+ * 計測は常にコンパイルされているが、無効時は lap() が呼ばれず、
+ * 呼び出し側の判定（isEnabled() の volatile 読み取り1回）だけのコストになる。
+ * 記録はシミュレーションスレッド/UIスレッドのどちらからでも行える。
+ */
+public class FrameMetrics {
+
+    // --- フェーズ ---
+    public static final int PHASE_LEVEL_TIMER = 0;
+    public static final int PHASE_SPAWN = 1;
+    public static final int PHASE_MOVE = 2;
+    public static final int PHASE_COLLIDE = 3;
+    public static final int PHASE_UPDATE = 4;   // 1フレーム分のシミュレーション全体（複数ステップを含む）
+    public static final int PHASE_DISPATCH = 5; // スナップショットの反映とコールバック通知（UIスレッド）
+    public static final int PHASE_COUNT = 6;
+
+    private static final String[] PHASE_NAMES = {
+            "levelTimer", "spawn", "move", "collide", "update", "dispatch"
+    };
+
+    private volatile boolean enabled = false;
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASE_COUNT];
+
+    // --- カウンタ ---
+    private volatile int activeDrops = 0;
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private volatile long gcCount = 0;
+
+    public FrameMetrics() {
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 計測の有効/無効を切り替える。有効にしたときは以前の記録を消去する。
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            reset();
+        }
+        this.enabled = enabled;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : phases) {
+            histogram.reset();
+        }
+        activeDrops = 0;
+        frames.set(0);
+        droppedFrames.set(0);
+        gcCount = 0;
+    }
+
+    /**
+     * startNanos からの経過時間をフェーズに記録し、現在時刻を返す（次のフェーズの開始時刻として使う）。
+     */
+    public long lap(int phase, long startNanos) {
+        long now = System.nanoTime();
+        phases[phase].record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * vsync 1回分のフレームを記録する。
+     * @param dropped 前回のフレームから vsync を取りこぼした場合は true
+     */
+    public void recordFrame(boolean dropped) {
+        frames.incrementAndGet();
+        if (dropped) droppedFrames.incrementAndGet();
+    }
+
+    public void setActiveDrops(int count) {
+        activeDrops = count;
+    }
+
+    /**
+     * 計測開始からのGC回数を設定する（取得方法はプラットフォーム側が決める）。
+     */
+    public void setGcCount(long count) {
+        gcCount = count;
+    }
+
+    public LatencyHistogram getPhase(int phase) {
+        return phases[phase];
+    }
+
+    public int getActiveDrops() {
+        return activeDrops;
+    }
+
+    public long getFrames() {
+        return frames.get();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * 各フェーズの p50/p95/p99 (μs) とカウンタを、1フェーズ1行の表形式で追記する。
+     */
+    public void appendSummary(StringBuilder out) {
+        out.append("phase        p50    p95    p99  (us)\n");
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            LatencyHistogram histogram = phases[i];
+            appendPadded(out, PHASE_NAMES[i], 10, false);
+            appendMicros(out, histogram.getValueAtPercentile(50));
+            appendMicros(out, histogram.getValueAtPercentile(95));
+            appendMicros(out, histogram.getValueAtPercentile(99));
+            out.append('\n');
+        }
+        out.append("drops ").append(activeDrops)
+                .append("  frames ").append(frames.get())
+                .append("  dropped ").append(droppedFrames.get())
+                .append("  gc ").append(gcCount);
+    }
+
+    private static void appendMicros(StringBuilder out, long nanos) {
+        long tenths = (nanos + 50) / 100; // 0.1μs 単位に丸める
+        appendPadded(out, (tenths / 10) + "." + (tenths % 10), 7, true);
+    }
+
+    private static void appendPadded(StringBuilder out, String text, int width, boolean alignRight) {
+        if (!alignRight) out.append(text);
+        for (int i = text.length(); i < width; i++) {
+            out.append(' ');
+        }
+        if (alignRight) out.append(text);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.acc_02.engine;
+
+/**
+ * ゲームエンジンが参照する単調増加クロック。
+ * 実機では vsync の時刻、テストでは手動で進めるクロックを差し込めるようにする。
+ */
+public interface GameClock {
+
+    /** System.nanoTime() を返す既定のクロック */
+    GameClock SYSTEM = System::nanoTime;
+
+    /**
+     * 現在時刻をナノ秒で返す（単調増加であること）。
+     */
+    long nanoTime();
+}
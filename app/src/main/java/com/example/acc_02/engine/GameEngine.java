@@ -0,0 +1,432 @@
+package com.example.acc_02.engine;
+
+/**
+ * ゲームのルールだけを扱う、Androidに依存しないシミュレーション本体。
+ * レベルタイマー、難易度上昇、雨粒の生成/移動、衝突判定、スコア計算を行う。
+ *
+ * 時間は差し込まれた GameClock から取得し、固定ステップで進める。
+ * レベルタイマーは実行したステップ数（シミュレーション時間）で計るため、
+ * 一時停止中の時間は自然に除外され、同じシードと入力からは常に同じ結果になる。
+ * 雨粒の生成は SpawnScheduler がレベルごとに前もって計算した予定に従う。
+ * 1つのスレッドからのみ使用すること。
+ */
+public class GameEngine {
+
+    // --- 固定ステップ ---
+    public static final int STEPS_PER_SECOND = 60;
+    public static final long STEP_NANOS = 1_000_000_000L / STEPS_PER_SECOND; // 固定シミュレーションステップ (60Hz)
+    public static final float STEP_SEC = STEP_NANOS / 1_000_000_000f;
+    private static final long MAX_FRAME_NANOS = 250_000_000L; // 1回の更新で消化する経過時間の上限（復帰直後の暴走防止）
+
+    // --- レベル/難易度（既定値。ゲームごとの値は DifficultyProfile で指定する） ---
+    public static final int LEVEL_UP_INTERVAL_SEC = 15;
+    // 速度と発生頻度は「毎秒」単位で扱い、フレームレートに依存しないようにする
+    public static final float BASE_RAIN_SPEED = 1200.0f;    // 雨粒の初期速度 (px/秒)
+    public static final float RAIN_SPEED_PER_LEVEL = 60.0f; // レベルごとの速度増加量 (px/秒)
+    // 発生確率1あたりの毎秒の発生数（従来の「60Hzの1ティックあたり1%」と同じ頻度）
+    public static final float SPAWNS_PER_SEC_PER_CHANCE = 0.6f;
+    public static final int MAX_RAIN_SPAWN_CHANCE = 30;
+
+    // --- プレイヤー ---
+    // 傾き1 m/s^2 あたりの移動速度 (px/秒)。従来の「1サンプル(約5Hz)ごとに傾き×50px」と同じ速さ
+    public static final float PLAYER_SPEED_PER_TILT = 250.0f;
+
+    // --- 雨粒/衝突 ---
+    public static final int RAINDROP_SIZE = 50; // 雨粒のサイズ (px)
+    private static final float COLLISION_FACTOR = 0.6f; // プレイヤー画像に対する当たり判定の縮小率
+
+    private final GameClock clock;
+    private final SpawnScheduler spawnScheduler = new SpawnScheduler();
+    private final RaindropPool raindrops;
+    private final RaindropCollider collider;
+    private FrameMetrics metrics = null; // フェーズごとの処理時間の計測先（null の場合は計測しない）
+    private TiltSource tiltInput = null; // 傾きの入力（null の場合はプレイヤーを動かさない）
+
+    // --- ゲーム状態 ---
+    private DifficultyProfile profile = DifficultyProfile.of(5, 1);
+    // STEP_NANOS は端数を切り捨てているため、レベル間隔はナノ秒ではなくステップ数で数える
+    private long levelUpIntervalSteps = (long) LEVEL_UP_INTERVAL_SEC * STEPS_PER_SECOND;
+    private boolean isGameOver = false;
+    private int score = 0;
+    private int scoreMultiplier = 1;
+    private int currentLevel = 1;
+    private long elapsedSteps = 0; // ゲーム開始から実行したステップ数（シミュレーション時間）
+    private float currentRainSpeed = BASE_RAIN_SPEED; // px/秒
+    private int currentRainSpawnChance = 5;
+
+    // --- 時間管理 ---
+    private long lastUpdateNanos = 0;
+    private boolean hasLastUpdate = false;
+    private long accumulatorNanos = 0; // 未消化のシミュレーション時間
+
+    // --- フィールド/プレイヤー ---
+    private float fieldWidth = 0;
+    private float fieldHeight = 0;
+    private float playerX, playerY, playerWidth, playerHeight;
+    private float prevPlayerX, prevPlayerY; // 補間描画用の前ステップの位置
+    private float playerTiltX = 0;          // 最後のステップで使った左右の傾き
+    private boolean playerPlaced = false;   // false の場合は次のステップでフィールド中央に置く
+
+    public GameEngine(GameClock clock, long seed) {
+        this(clock, seed, RaindropPool.DEFAULT_CAPACITY);
+    }
+
+    public GameEngine(GameClock clock, long seed, int capacity) {
+        this.clock = clock;
+        this.spawnScheduler.reset(seed);
+        this.raindrops = new RaindropPool(capacity);
+        this.collider = new RaindropCollider();
+    }
+
+    /**
+     * 速度とレベルの上がり方を既定値としてゲームを開始する。
+     * @param initialSpawnChance 選択された難易度に基づく初期の雨の発生確率
+     * @param multiplier スコア倍率
+     * @param seed 乱数シード（同じシードと入力からは同じ展開になる）
+     */
+    public void startGame(int initialSpawnChance, int multiplier, long seed) {
+        startGame(DifficultyProfile.of(initialSpawnChance, multiplier), seed);
+    }
+
+    /**
+     * ゲームを開始し、状態変数を初期化する。
+     * @param profile 選択された難易度のパラメータ
+     * @param seed 乱数シード（同じシードと入力からは同じ展開になる）
+     */
+    public void startGame(DifficultyProfile profile, long seed) {
+        this.profile = profile;
+        levelUpIntervalSteps = (long) profile.levelUpIntervalSec * STEPS_PER_SECOND;
+        scoreMultiplier = profile.scoreMultiplier;
+        currentRainSpawnChance = profile.spawnChance;
+        currentRainSpeed = profile.baseRainSpeed;
+        currentLevel = 1;
+        elapsedSteps = 0;
+        score = 0;
+        isGameOver = false;
+        raindrops.clear();
+        spawnScheduler.reset(seed);
+        spawnScheduler.startLevel(currentLevel, getSpawnsPerSecond(), 1);
+        resyncClock();
+    }
+
+    /**
+     * 次回の update() では経過時間を計測し直す（ループの開始/再開時に呼ぶ）。
+     * 停止していた間の時間はシミュレーションに含まれない。
+     */
+    public void resyncClock() {
+        hasLastUpdate = false;
+        accumulatorNanos = 0;
+    }
+
+    /**
+     * クロックの経過時間分だけ固定ステップでシミュレーションを進める。
+     * @return 実行したステップ数
+     */
+    public int update() {
+        long now = clock.nanoTime();
+        if (hasLastUpdate) {
+            long delta = now - lastUpdateNanos;
+            if (delta > MAX_FRAME_NANOS) delta = MAX_FRAME_NANOS;
+            if (delta > 0) accumulatorNanos += delta;
+        }
+        lastUpdateNanos = now;
+        hasLastUpdate = true;
+
+        int steps = 0;
+        while (accumulatorNanos >= STEP_NANOS && !isGameOver) {
+            step();
+            accumulatorNanos -= STEP_NANOS;
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * シミュレーションを固定ステップ1回分進める。
+     * 各フェーズはベンチマークから個別に計測できるよう、パッケージプライベートにしている。
+     */
+    public void step() {
+        if (isGameOver) return;
+        elapsedSteps++;
+
+        final FrameMetrics m = metrics;
+        if (m == null || !m.isEnabled()) {
+            updateLevelTimer();
+            spawnRaindrop();
+            movePlayer();
+            moveRaindrops();
+            checkCollisions();
+            return;
+        }
+
+        // 計測有効時のみ、各フェーズの処理時間を記録する（シミュレーション結果には影響しない）
+        long t = System.nanoTime();
+        updateLevelTimer();
+        t = m.lap(FrameMetrics.PHASE_LEVEL_TIMER, t);
+        spawnRaindrop();
+        t = m.lap(FrameMetrics.PHASE_SPAWN, t);
+        movePlayer();
+        moveRaindrops();
+        t = m.lap(FrameMetrics.PHASE_MOVE, t);
+        checkCollisions();
+        m.lap(FrameMetrics.PHASE_COLLIDE, t);
+    }
+
+    /**
+     * 他のフェーズを実行せずに、経過ステップ数だけを1つ進める（レベルタイマーを単独で計測するベンチマーク用）。
+     */
+    void advanceStepCount() {
+        elapsedSteps++;
+    }
+
+    /**
+     * レベルアップの判定を行う。
+     */
+    void updateLevelTimer() {
+        int expectedLevel = (int) (elapsedSteps / levelUpIntervalSteps) + 1;
+        if (expectedLevel > currentLevel) {
+            currentLevel = expectedLevel;
+            increaseDifficulty();
+        }
+    }
+
+    /**
+     * 難易度レベルを上げ、雨粒の速度と発生頻度を増加させる。
+     */
+    private void increaseDifficulty() {
+        currentRainSpeed += profile.rainSpeedPerLevel;
+        if (currentRainSpawnChance < profile.maxSpawnChance) {
+            currentRainSpawnChance += 1;
+        }
+        // 次のステップから新しい頻度の予定で生成する
+        spawnScheduler.startLevel(currentLevel, getSpawnsPerSecond(), elapsedSteps + 1);
+    }
+
+    /**
+     * 発生確率を毎秒の平均の発生数に換算した値。
+     */
+    private float getSpawnsPerSecond() {
+        return currentRainSpawnChance * SPAWNS_PER_SEC_PER_CHANCE;
+    }
+
+    /**
+     * 予定どおりに画面上部に雨粒を生成する（予定はレベルの開始時に計算済みのため、ここでは乱数を引かない）。
+     */
+    void spawnRaindrop() {
+        final float position = spawnScheduler.poll(elapsedSteps);
+        if (position < 0) return;
+        final float range = (int) fieldWidth - RAINDROP_SIZE;
+        if (range <= 0) return; // レイアウト前は生成しない
+
+        // 上限に達している場合は生成しない（add が -1 を返す）
+        raindrops.add((int) (position * range), 0, RAINDROP_SIZE, RAINDROP_SIZE);
+    }
+
+    /**
+     * 傾きの入力をステップごとに1回だけ読み取り、プレイヤーを移動させる。
+     * 入力の読み取りをステップに合わせることで、同じ入力列からは同じ結果になる。
+     */
+    void movePlayer() {
+        if (!playerPlaced) {
+            if (fieldWidth <= 0 || fieldHeight <= 0) return; // レイアウト前は置かない
+            playerX = (fieldWidth - playerWidth) / 2.0f;
+            playerY = (fieldHeight - playerHeight) / 2.0f;
+            playerPlaced = true;
+        }
+
+        prevPlayerX = playerX;
+        prevPlayerY = playerY;
+        if (tiltInput == null) return;
+
+        final long tilt = tiltInput.read();
+        final float tiltX = TiltSlot.x(tilt);
+        final float tiltY = TiltSlot.y(tilt);
+        playerTiltX = tiltX;
+
+        // 1. 水平移動（右に傾けると x 成分が負になる）
+        float newX = playerX - tiltX * PLAYER_SPEED_PER_TILT * STEP_SEC;
+        if (newX + playerWidth > fieldWidth) newX = fieldWidth - playerWidth;
+        if (newX < 0) newX = 0;
+        playerX = newX;
+
+        // 2. 垂直移動（前後の傾きで上下に動く）
+        // プレイヤーは画面全体を動けるため、上下に逃げて雨粒を避けることもできる
+        float newY = playerY + tiltY * PLAYER_SPEED_PER_TILT * STEP_SEC;
+        if (newY + playerHeight > fieldHeight) newY = fieldHeight - playerHeight;
+        if (newY < 0) newY = 0;
+        playerY = newY;
+    }
+
+    /**
+     * すべての雨粒を下に移動させ、画面外に出たものを削除してスコアを加算する。
+     * 雨粒は生成順に下から並んでおり（RaindropCollider はこの並びを前提にする）、
+     * 画面外に出るのは常に先頭の古い雨粒のため、並びを保ったまま先頭から取り除く。
+     */
+    void moveRaindrops() {
+        final float[] ys = raindrops.y;
+        final float[] prevYs = raindrops.prevY;
+        final float distance = currentRainSpeed * STEP_SEC; // 1ステップの移動量
+        final float height = fieldHeight;
+        final int n = raindrops.size();
+
+        int exited = 0;
+        for (int i = 0; i < n; i++) {
+            prevYs[i] = ys[i]; // 補間描画・スイープ判定用に移動前の位置を保持
+            ys[i] += distance;
+            if (ys[i] > height && i == exited) exited++;
+        }
+        if (exited > 0) {
+            raindrops.removeFirst(exited);
+            score += scoreMultiplier * exited;
+        }
+    }
+
+    /**
+     * プレイヤーと雨粒の衝突判定を行い、衝突した場合はゲームオーバーにする。
+     */
+    void checkCollisions() {
+        float collisionWidth = playerWidth * COLLISION_FACTOR;
+        float collisionHeight = playerHeight * COLLISION_FACTOR;
+        float collisionX = playerX + (playerWidth - collisionWidth) / 2.0f;
+        float collisionY = playerY + (playerHeight - collisionHeight) / 2.0f;
+
+        // プレイヤー付近の雨粒だけを、移動区間全体を掃引して判定する
+        if (collider.findCollision(raindrops,
+                collisionX, collisionY, collisionWidth, collisionHeight) >= 0) {
+            isGameOver = true;
+            raindrops.clear(); // 衝突した雨粒を含め、すべて削除する
+        }
+    }
+
+    // =========================================================================================
+    // 入力（フィールド/プレイヤー）
+    // =========================================================================================
+
+    /**
+     * フェーズごとの処理時間の計測先を設定する。null の場合は計測しない。
+     */
+    public void setMetrics(FrameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 雨粒が降るフィールドの大きさを設定する。
+     */
+    public void setFieldSize(float width, float height) {
+        this.fieldWidth = width;
+        this.fieldHeight = height;
+    }
+
+    /**
+     * プレイヤー画像の位置とサイズを設定する（当たり判定はこれを縮小した矩形）。
+     */
+    public void setPlayerBounds(float x, float y, float width, float height) {
+        this.playerX = x;
+        this.playerY = y;
+        this.prevPlayerX = x;
+        this.prevPlayerY = y;
+        this.playerWidth = width;
+        this.playerHeight = height;
+        this.playerPlaced = true;
+    }
+
+    /**
+     * プレイヤー画像のサイズを設定する。位置はシミュレーション内で傾きから求める。
+     */
+    public void setPlayerSize(float width, float height) {
+        this.playerWidth = width;
+        this.playerHeight = height;
+    }
+
+    /**
+     * 次のステップでプレイヤーをフィールド中央に置き直す（ゲーム開始時）。
+     */
+    public void resetPlayerPosition() {
+        playerPlaced = false;
+        playerTiltX = 0;
+    }
+
+    /**
+     * 傾きの入力元を設定する。ステップごとに1回だけ読み取る（記録/再生は ReplayRecorder / ReplayPlayer を渡す）。
+     */
+    public void setTiltInput(TiltSource tiltInput) {
+        this.tiltInput = tiltInput;
+    }
+
+    // =========================================================================================
+    // 状態の取得
+    // =========================================================================================
+
+    /**
+     * 現在の状態をスナップショットへ書き込む。
+     */
+    public void writeSnapshot(GameSnapshot snapshot) {
+        snapshot.raindrops.copyFrom(raindrops);
+        snapshot.interpolation = getInterpolation();
+        snapshot.score = score;
+        snapshot.level = currentLevel;
+        snapshot.secondsToNextLevel = getSecondsToNextLevel();
+        snapshot.elapsedNanos = getElapsedNanos();
+        snapshot.gameOver = isGameOver;
+        snapshot.playerX = playerX;
+        snapshot.playerY = playerY;
+        snapshot.prevPlayerX = prevPlayerX;
+        snapshot.prevPlayerY = prevPlayerY;
+        snapshot.playerTiltX = playerTiltX;
+        snapshot.playerPlaced = playerPlaced;
+    }
+
+    public RaindropPool getRaindrops() {
+        return raindrops;
+    }
+
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public float getPlayerX() {
+        return playerX;
+    }
+
+    public float getPlayerY() {
+        return playerY;
+    }
+
+    public int getLevel() {
+        return currentLevel;
+    }
+
+    public float getRainSpeed() {
+        return currentRainSpeed;
+    }
+
+    public int getRainSpawnChance() {
+        return currentRainSpawnChance;
+    }
+
+    /**
+     * ゲーム開始からのシミュレーション時間（ナノ秒）。一時停止中は進まない。
+     */
+    public long getElapsedNanos() {
+        return elapsedSteps * STEP_NANOS;
+    }
+
+    /**
+     * 次のレベルまでの残り秒数（切り上げ）。
+     */
+    public int getSecondsToNextLevel() {
+        long stepsToNextLevel = levelUpIntervalSteps - (elapsedSteps % levelUpIntervalSteps);
+        return (int) ((stepsToNextLevel + STEPS_PER_SECOND - 1) / STEPS_PER_SECOND);
+    }
+
+    /**
+     * 前ステップと現ステップの間の補間係数 (0.0〜1.0)。
+     */
+    public float getInterpolation() {
+        return accumulatorNanos / (float) STEP_NANOS;
+    }
+}
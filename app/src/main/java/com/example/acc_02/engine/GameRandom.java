@@ -0,0 +1,42 @@
+package com.example.acc_02.engine;
+
+/**
+ * シード指定可能な乱数生成器（SplitMix64）。
+ * java.util.Random と異なり同期処理を持たず、同じシードからは常に同じ系列を返す。
+ * 1つのスレッドからのみ使用すること。
+ */
+public final class GameRandom {
+
+    private long state;
+
+    public GameRandom(long seed) {
+        setSeed(seed);
+    }
+
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 0.0f 以上 1.0f 未満の一様乱数を返す。
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * 0 以上 bound 未満の一様な整数を返す。
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        // 上位ビットを使って [0, bound) に写像する（偏りは無視できる程度）
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+}
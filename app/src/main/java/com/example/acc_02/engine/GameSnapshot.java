@@ -0,0 +1,26 @@
+package com.example.acc_02.engine;
+
+/**
+ * シミュレーション1ステップ分の結果をUIスレッドへ渡すためのスナップショット。
+ * 書き込みはシミュレーション側のみが行い、SnapshotExchange で公開された後は
+ * 次に書き込み側へ戻されるまで変更されない（UIスレッドは読み取り専用として扱う）。
+ */
+public class GameSnapshot {
+
+    public final RaindropPool raindrops;  // 雨粒の位置（前ステップの位置を含む）
+    public float interpolation;           // 描画時の補間係数 (0.0〜1.0)
+    public int generation;                // ゲーム開始ごとに増える世代番号（古いゲームの結果を無視するため）
+    public int score;
+    public int level;
+    public int secondsToNextLevel;
+    public long elapsedNanos;             // ゲーム開始からのシミュレーション時間
+    public boolean gameOver;
+    // プレイヤーの位置（前ステップの位置を含む）と、最後に使った左右の傾き
+    public float playerX, playerY, prevPlayerX, prevPlayerY;
+    public float playerTiltX;
+    public boolean playerPlaced;          // false の場合はまだ初期位置に置かれていない
+
+    public GameSnapshot(int capacity) {
+        this.raindrops = new RaindropPool(capacity);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.acc_02.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 処理時間（ナノ秒）の分布を記録するロックフリーのヒストグラム（HDR Histogram 風の対数線形バケット）。
+ *
+ * 2のべき乗ごとの区間をさらに SUB_BUCKET_COUNT 個に等分するため、
+ * 値の大きさによらず相対誤差は約 1/SUB_BUCKET_COUNT に収まる。
+ * 記録は配列の加算1回のみで、確保もロックも行わないため、どのスレッドからでも呼べる。
+ * パーセンタイルの読み取りは記録と並行して行ってもよい（その時点の近似値になる）。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS; // 16（相対誤差 約6%）
+    private static final int MAX_EXPONENT = 40; // 2^40 ns（約18分）以上は最後のバケットにまとめる
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * 値を1件記録する。負の値は0として扱う。
+     */
+    public void record(long valueNanos) {
+        counts.incrementAndGet(bucketIndex(valueNanos));
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 指定したパーセンタイルの値（バケットの上限値）を返す。記録がない場合は0。
+     * @param percentile 0.0〜100.0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getTotalCount();
+        if (total == 0) return 0;
+
+        long target = (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0);
+        if (target < 1) target = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return bucketUpperBound(i);
+        }
+        return bucketUpperBound(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 記録された最大値（が含まれるバケットの上限値）を返す。記録がない場合は0。
+     */
+    public long getMaxValue() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) return bucketUpperBound(i);
+        }
+        return 0;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return value < 0 ? 0 : (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKET_COUNT - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        // 区間 [2^exponent, 2^(exponent+1)) を SUB_BUCKET_COUNT 個に等分した位置
+        int sub = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        int sub = index % SUB_BUCKET_COUNT;
+        long lower = (long) (SUB_BUCKET_COUNT + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.acc_02.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 送信されたイベントをメモリ上に保持するだけの送信先。
+ * ネットワークなしで分析イベントの内容を確認するために使う（テスト、オフラインでの確認など）。
+ */
+public class LocalAnalyticsBackend implements AnalyticsBackend {
+
+    private final List<AnalyticsEvent> events = new ArrayList<>();
+
+    @Override
+    public synchronized void send(AnalyticsEvent event) {
+        events.add(event);
+    }
+
+    /** これまでに送信されたイベント（送信順のコピー） */
+    public synchronized List<AnalyticsEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
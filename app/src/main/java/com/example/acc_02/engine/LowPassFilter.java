@@ -0,0 +1,37 @@
+package com.example.acc_02.engine;
+
+/**
+ * カットオフ周波数が一定の一次ローパスフィルタ（指数移動平均）。
+ */
+public class LowPassFilter implements TiltFilter {
+
+    private final float cutoffHz;
+    private boolean hasValue = false;
+    private float lastValue;
+    private long lastTimestampNanos;
+
+    public LowPassFilter(float cutoffHz) {
+        this.cutoffHz = cutoffHz;
+    }
+
+    @Override
+    public float filter(float value, long timestampNanos) {
+        if (!hasValue) {
+            hasValue = true;
+            lastValue = value;
+            lastTimestampNanos = timestampNanos;
+            return value;
+        }
+        float dt = (timestampNanos - lastTimestampNanos) / 1_000_000_000f;
+        if (dt <= 0) return lastValue;
+        lastTimestampNanos = timestampNanos;
+
+        lastValue += (value - lastValue) * TiltFilter.smoothingFactor(cutoffHz, dt);
+        return lastValue;
+    }
+
+    @Override
+    public void reset() {
+        hasValue = false;
+    }
+}
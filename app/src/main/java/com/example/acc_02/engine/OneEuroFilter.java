@@ -0,0 +1,50 @@
+package com.example.acc_02.engine;
+
+/**
+ * One Euro フィルタ（Casiez et al., 2012）。
+ * 値の変化が遅いときはカットオフを下げて手ぶれを抑え、速いときはカットオフを上げて遅延を抑える。
+ */
+public class OneEuroFilter implements TiltFilter {
+
+    private final float minCutoffHz; // 静止時のカットオフ周波数
+    private final float beta;        // 変化の速さに応じてカットオフを上げる割合
+    private final float derivativeCutoffHz;
+
+    private boolean hasValue = false;
+    private float lastValue;
+    private float lastDerivative;
+    private long lastTimestampNanos;
+
+    public OneEuroFilter(float minCutoffHz, float beta, float derivativeCutoffHz) {
+        this.minCutoffHz = minCutoffHz;
+        this.beta = beta;
+        this.derivativeCutoffHz = derivativeCutoffHz;
+    }
+
+    @Override
+    public float filter(float value, long timestampNanos) {
+        if (!hasValue) {
+            hasValue = true;
+            lastValue = value;
+            lastDerivative = 0;
+            lastTimestampNanos = timestampNanos;
+            return value;
+        }
+        float dt = (timestampNanos - lastTimestampNanos) / 1_000_000_000f;
+        if (dt <= 0) return lastValue;
+        lastTimestampNanos = timestampNanos;
+
+        // 変化の速さ（微分値）も平滑化してからカットオフを決める
+        float derivative = (value - lastValue) / dt;
+        lastDerivative += (derivative - lastDerivative) * TiltFilter.smoothingFactor(derivativeCutoffHz, dt);
+        float cutoff = minCutoffHz + beta * Math.abs(lastDerivative);
+
+        lastValue += (value - lastValue) * TiltFilter.smoothingFactor(cutoff, dt);
+        return lastValue;
+    }
+
+    @Override
+    public void reset() {
+        hasValue = false;
+    }
+}
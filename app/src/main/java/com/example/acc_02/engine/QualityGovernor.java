@@ -0,0 +1,124 @@
+package com.example.acc_02.engine;
+
+/**
+ * 計測したフレーム時間と端末の温度状態から、演出の品質段階（tier）を決めるクラス。
+ *
+ * フレーム時間は windowFrames 枚ごとの平均で判定し、平均が degradeFrameMillis を超えたら1段階下げる。
+ * 上げるのは平均が recoverFrameMillis（degrade より小さい）を下回る区間が recoverWindows 回続いたときだけにして、
+ * 下げた直後に負荷が軽くなって上げ、また下げる、という振動を防ぐ。
+ * 温度状態は段階の下限として働く（温度が下がれば下限も外れる）。
+ * 1つのスレッドからのみ使用すること。
+ */
+public class QualityGovernor {
+
+    // 段階（大きいほど軽い。下の段階の省略はすべて含む）
+    public static final int TIER_FULL = 0;
+    public static final int TIER_NO_POPUPS = 1;      // スコアのフローティングテキストを表示しない
+    public static final int TIER_SIMPLE_EFFECTS = 2; // フラッシュと背景を簡略化し、描画する雨粒の数を制限する
+    public static final int TIER_REDUCED_RATE = 3;   // さらに描画の更新を2フレームに1回にする
+    public static final int MAX_TIER = TIER_REDUCED_RATE;
+
+    // PowerManager.THERMAL_STATUS_* の値
+    private static final int THERMAL_STATUS_MODERATE = 2;
+    private static final int THERMAL_STATUS_SEVERE = 3;
+    private static final int THERMAL_STATUS_CRITICAL = 4;
+
+    /** 復帰直後などの長い間隔はフレーム時間として数えない */
+    private static final long MAX_FRAME_INTERVAL_NANOS = 250_000_000L;
+
+    /** 判定のしきい値（変更しない） */
+    public static final class Thresholds {
+        public static final Thresholds DEFAULT = new Thresholds(20.0f, 17.5f, 60, 3);
+
+        public final float degradeFrameMillis; // 平均がこれを超えたら1段階下げる
+        public final float recoverFrameMillis; // 平均がこれを下回る区間が続いたら1段階上げる
+        public final int windowFrames;         // 平均をとるフレーム数
+        public final int recoverWindows;       // 上げるまでに続く必要がある区間の数
+
+        public Thresholds(float degradeFrameMillis, float recoverFrameMillis, int windowFrames, int recoverWindows) {
+            this.degradeFrameMillis = Math.max(1.0f, degradeFrameMillis);
+            this.recoverFrameMillis = Math.min(Math.max(0.0f, recoverFrameMillis), this.degradeFrameMillis);
+            this.windowFrames = Math.max(1, windowFrames);
+            this.recoverWindows = Math.max(1, recoverWindows);
+        }
+    }
+
+    private Thresholds thresholds = Thresholds.DEFAULT;
+    private int frameTier = TIER_FULL;   // フレーム時間から決めた段階
+    private int thermalTier = TIER_FULL; // 温度状態による下限
+    private long lastFrameNanos = 0;
+    private long windowSumNanos = 0;
+    private int windowCount = 0;
+    private int goodWindows = 0;
+
+    public void setThresholds(Thresholds thresholds) {
+        this.thresholds = thresholds;
+        resetFrames();
+    }
+
+    /**
+     * フレーム時間の計測をやり直す（計測の開始/再開時に呼ぶ）。段階は保つ。
+     */
+    public void resetFrames() {
+        lastFrameNanos = 0;
+        windowSumNanos = 0;
+        windowCount = 0;
+        goodWindows = 0;
+    }
+
+    /**
+     * フレームの開始時刻を渡す。
+     * @return 段階が変わった場合は true
+     */
+    public boolean onFrame(long frameTimeNanos) {
+        final long last = lastFrameNanos;
+        lastFrameNanos = frameTimeNanos;
+        if (last == 0) return false;
+        final long interval = frameTimeNanos - last;
+        if (interval <= 0 || interval > MAX_FRAME_INTERVAL_NANOS) return false;
+
+        windowSumNanos += interval;
+        if (++windowCount < thresholds.windowFrames) return false;
+
+        final float averageMillis = windowSumNanos / (windowCount * 1_000_000.0f);
+        windowSumNanos = 0;
+        windowCount = 0;
+
+        final int before = getTier();
+        if (averageMillis > thresholds.degradeFrameMillis) {
+            goodWindows = 0;
+            if (frameTier < MAX_TIER) frameTier++;
+        } else if (averageMillis < thresholds.recoverFrameMillis) {
+            if (++goodWindows >= thresholds.recoverWindows && frameTier > TIER_FULL) {
+                frameTier--;
+                goodWindows = 0;
+            }
+        } else {
+            goodWindows = 0; // しきい値の間は現在の段階を保つ
+        }
+        return getTier() != before;
+    }
+
+    /**
+     * 端末の温度状態（PowerManager.THERMAL_STATUS_*）を渡す。
+     * @return 段階が変わった場合は true
+     */
+    public boolean setThermalStatus(int status) {
+        final int before = getTier();
+        if (status >= THERMAL_STATUS_CRITICAL) {
+            thermalTier = TIER_REDUCED_RATE;
+        } else if (status >= THERMAL_STATUS_SEVERE) {
+            thermalTier = TIER_SIMPLE_EFFECTS;
+        } else if (status >= THERMAL_STATUS_MODERATE) {
+            thermalTier = TIER_NO_POPUPS;
+        } else {
+            thermalTier = TIER_FULL;
+        }
+        return getTier() != before;
+    }
+
+    /** 現在の段階 */
+    public int getTier() {
+        return Math.max(frameTier, thermalTier);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.acc_02.engine;
+
+/**
+ * 雨粒とプレイヤーの衝突判定を行うクラス。
+ *
+ * ブロードフェーズ: 雨粒はすべて y=0 で生成され、同じ速さで落ちるため、プール内では生成順（添字の昇順）に
+ * 下から上へ並んでいる（GameEngine は画面外に出た雨粒を順序を保ったまま先頭から取り除く）。
+ * この並びを使い、掃引矩形がプレイヤーの高さにかかる添字の範囲を二分探索で求める。
+ * 並べ替えや作業用配列の再構築は行わないため、判定のコストは雨粒の数 n に対して O(log n + k)
+ * （k はプレイヤーと同じ高さにある雨粒の数）になる。
+ *
+ * ナローフェーズ: 各雨粒の1ステップ分の移動区間（前ステップの位置〜現在位置）全体を
+ * 掃引した矩形で判定する（スイープ判定）。速度が上がって1ステップの移動量が
+ * プレイヤーの高さを超えても、すり抜けが起きない。
+ */
+public class RaindropCollider {
+
+    /**
+     * プレイヤーの当たり判定矩形と衝突した雨粒を探す。
+     * @param pool 雨粒プール。prevY が前ステップの位置で、添字の昇順に掃引矩形の上端と下端が
+     *             どちらも増えないこと（同じ高さの雨粒が同じ距離だけ下へ動いた状態）
+     * @return 衝突した雨粒のインデックス。衝突なしの場合は -1
+     */
+    public int findCollision(RaindropPool pool, float left, float top, float width, float height) {
+        int n = pool.size();
+        if (n == 0 || width <= 0 || height <= 0) return -1;
+
+        final float right = left + width;
+        final float bottom = top + height;
+        final float[] xs = pool.x;
+        final float[] ys = pool.y;
+        final float[] prevYs = pool.prevY;
+        final float[] ws = pool.w;
+        final float[] hs = pool.h;
+
+        // 掃引矩形の上端がプレイヤーの下端より上にある最初の雨粒（ここより前はすべてプレイヤーより下）
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Math.min(prevYs[mid], ys[mid]) < bottom) hi = mid; else lo = mid + 1;
+        }
+        final int first = lo;
+
+        // 掃引矩形の下端がプレイヤーの上端以下になる最初の雨粒（ここから後はすべてプレイヤーより上）
+        hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Math.max(prevYs[mid], ys[mid]) + hs[mid] <= top) hi = mid; else lo = mid + 1;
+        }
+        final int end = lo;
+
+        for (int i = first; i < end; i++) {
+            // 縦方向は範囲内で重なっているため、横方向だけを調べる
+            if (left < xs[i] + ws[i] && right > xs[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.acc_02.engine;
+
+/**
+ * 雨粒の状態を保持するプール（struct-of-arrays形式）。
+ * 位置とサイズを並列の float[] で管理する。削除は末尾要素との入れ替え（swap-remove）か、
+ * 並び順を保つ先頭からの削除（removeFirst）で行う。
+ * 配列は生成時に上限容量で確保するため、フレーム中のメモリ確保は発生しない。
+ */
+public class RaindropPool {
+
+    /** 既定の最大雨粒数 */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    public final float[] x;
+    public final float[] y;
+    public final float[] prevY; // 前ステップのy座標（補間描画用）
+    public final float[] w;
+    public final float[] h;
+
+    private final int capacity;
+    private int count = 0;
+
+    public RaindropPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RaindropPool(int capacity) {
+        this.capacity = capacity;
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.prevY = new float[capacity];
+        this.w = new float[capacity];
+        this.h = new float[capacity];
+    }
+
+    /**
+     * 雨粒を追加する。
+     * @return 追加したインデックス。上限に達している場合は -1
+     */
+    public int add(float x, float y, float w, float h) {
+        if (count >= capacity) return -1;
+        int i = count++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.prevY[i] = y;
+        this.w[i] = w;
+        this.h[i] = h;
+        return i;
+    }
+
+    /**
+     * 指定インデックスの雨粒を削除する（末尾の雨粒をその位置へ移動する）。
+     * 走査中に削除する場合は末尾から先頭に向かって走査すること。
+     */
+    public void removeAt(int i) {
+        int last = --count;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            prevY[i] = prevY[last];
+            w[i] = w[last];
+            h[i] = h[last];
+        }
+    }
+
+    /**
+     * 先頭から count 個の雨粒を削除し、残りを並び順を保ったまま前に詰める。
+     */
+    public void removeFirst(int count) {
+        if (count <= 0) return;
+        int remaining = this.count - count;
+        if (remaining > 0) {
+            System.arraycopy(x, count, x, 0, remaining);
+            System.arraycopy(y, count, y, 0, remaining);
+            System.arraycopy(prevY, count, prevY, 0, remaining);
+            System.arraycopy(w, count, w, 0, remaining);
+            System.arraycopy(h, count, h, 0, remaining);
+        }
+        this.count = Math.max(0, remaining);
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * 別のプールの内容をこのプールへコピーする（スナップショット作成用）。
+     */
+    public void copyFrom(RaindropPool src) {
+        int n = Math.min(src.count, capacity);
+        System.arraycopy(src.x, 0, x, 0, n);
+        System.arraycopy(src.y, 0, y, 0, n);
+        System.arraycopy(src.prevY, 0, prevY, 0, n);
+        System.arraycopy(src.w, 0, w, 0, n);
+        System.arraycopy(src.h, 0, h, 0, n);
+        count = n;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
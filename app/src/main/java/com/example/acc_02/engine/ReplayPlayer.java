@@ -0,0 +1,204 @@
+package com.example.acc_02.engine;
+
+/**
+ * ReplayRecorder で記録したセッションを読み取り、記録時と同じ傾きをステップごとに返すクラス。
+ *
+ * GameEngine の傾きの入力元として設定し、ヘッダのシード/難易度のパラメータ/フィールドの大きさでゲームを開始すると、
+ * 記録時と同じ展開（雨粒、プレイヤーの位置、スコア）を再現する。
+ * 1つのスレッド（シミュレーションスレッド）からのみ使用すること。
+ */
+public class ReplayPlayer implements TiltSource {
+
+    private final byte[] data;
+    private int pos;
+
+    // --- ヘッダ ---
+    private final long seed;
+    private final DifficultyProfile profile;
+    private final float fieldWidth;
+    private final float fieldHeight;
+    private final float playerWidth;
+    private final float playerHeight;
+
+    // --- 再生状態 ---
+    private long step = 0;
+    private long nextEventStep;   // 次のイベントを適用するステップ（なければ Long.MAX_VALUE）
+    private int nextEventType;    // TAG_TILT_X / TAG_TILT_Y / TAG_TILT_XY（短いイベントの場合は -1）
+    private int shortEvent;       // 短いイベントのバイト
+    private int qx = 0;
+    private int qy = 0;
+    private long recordedSteps = -1; // 記録の終了までのステップ数（不明の場合は -1）
+    private int recordedScore = -1;  // 記録時の最終スコア（不明の場合は -1）
+
+    /**
+     * @param data ReplayRecorder.copyLastSession() で取得したセッション
+     * @throws IllegalArgumentException 形式が正しくない場合（途中で切れている、壊れているなど）
+     */
+    public ReplayPlayer(byte[] data) {
+        this.data = data;
+        final int version = data.length >= 2 ? data[1] & 0xFF : 0;
+        if (data.length < 2 || (data[0] & 0xFF) != ReplayRecorder.MAGIC
+                || version < 1 || version > ReplayRecorder.VERSION) {
+            throw new IllegalArgumentException("not a replay session");
+        }
+        if (version < ReplayRecorder.MIN_VERSION) {
+            throw new IllegalArgumentException("replay version " + version + " is no longer supported");
+        }
+        pos = 2;
+        long s = 0;
+        for (int shift = 0; shift < 64; shift += 8) {
+            s |= (long) readByte() << shift;
+        }
+        seed = s;
+        final int spawnChance = (int) readVarLong();
+        final int scoreMultiplier = (int) readVarLong();
+        final float baseRainSpeed = readFloat();
+        final float rainSpeedPerLevel = readFloat();
+        final int levelUpIntervalSec = (int) readVarLong();
+        final int maxSpawnChance = (int) readVarLong();
+        profile = new DifficultyProfile(spawnChance, scoreMultiplier, baseRainSpeed, rainSpeedPerLevel,
+                levelUpIntervalSec, maxSpawnChance);
+        fieldWidth = readFloat();
+        fieldHeight = readFloat();
+        playerWidth = readFloat();
+        playerHeight = readFloat();
+        if (!(fieldWidth > 0 && fieldHeight > 0 && playerWidth > 0 && playerHeight > 0)) {
+            throw new IllegalArgumentException("replay recorded before layout (field "
+                    + fieldWidth + "x" + fieldHeight + ", player " + playerWidth + "x" + playerHeight + ")");
+        }
+
+        // 記録の終了（ステップ数と最終スコア）を先に読み取っておく
+        final int eventsStart = pos;
+        readNextEvent(0);
+        while (nextEventStep != Long.MAX_VALUE) {
+            skipEventPayload();
+            readNextEvent(nextEventStep);
+        }
+        pos = eventsStart;
+        readNextEvent(0);
+    }
+
+    /**
+     * 次のステップの傾きを返す。記録の終了後は最後の傾きを返し続ける。
+     */
+    @Override
+    public long read() {
+        step++;
+        if (step == nextEventStep) {
+            long eventStep = nextEventStep;
+            if (nextEventType < 0) {
+                qx += (shortEvent >>> 3 & 0x07) + ReplayRecorder.SHORT_DELTA_MIN;
+                qy += (shortEvent & 0x07) + ReplayRecorder.SHORT_DELTA_MIN;
+            } else {
+                if (nextEventType != ReplayRecorder.TAG_TILT_Y) qx += ReplayRecorder.unzigzag((int) readVarLong());
+                if (nextEventType != ReplayRecorder.TAG_TILT_X) qy += ReplayRecorder.unzigzag((int) readVarLong());
+            }
+            readNextEvent(eventStep);
+        }
+        return ReplayRecorder.pack(qx, qy);
+    }
+
+    private void skipEventPayload() {
+        if (nextEventType < 0) return;
+        if (nextEventType != ReplayRecorder.TAG_TILT_Y) readVarLong();
+        if (nextEventType != ReplayRecorder.TAG_TILT_X) readVarLong();
+    }
+
+    /**
+     * 次のイベントのタグを読み、適用するステップを求める。
+     */
+    private void readNextEvent(long lastEventStep) {
+        nextEventStep = Long.MAX_VALUE;
+        if (pos >= data.length) return; // 途中で打ち切られた記録
+
+        int tag = readByte();
+        if ((tag & ReplayRecorder.SHORT_EVENT_FLAG) != 0) {
+            nextEventType = -1;
+            shortEvent = tag;
+            nextEventStep = lastEventStep + 1;
+            return;
+        }
+        int type = tag & ReplayRecorder.TAG_TYPE_MASK;
+        if (type == ReplayRecorder.TAG_END) {
+            recordedSteps = lastEventStep + readVarLong();
+            recordedScore = (int) readVarLong() - 1;
+            return;
+        }
+        int inlineGap = tag >>> 2;
+        long gap = inlineGap != 0 ? inlineGap : readVarLong();
+        nextEventType = type;
+        nextEventStep = lastEventStep + gap;
+    }
+
+    /** 再生したステップ数 */
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * 記録した範囲をすべて再生したかどうか（記録が途中で打ち切られている場合は、最後のイベントまで）。
+     */
+    public boolean isFinished() {
+        return recordedSteps >= 0 ? step >= recordedSteps : nextEventStep == Long.MAX_VALUE;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /** 記録時の難易度のパラメータ */
+    public DifficultyProfile getProfile() {
+        return profile;
+    }
+
+    public float getFieldWidth() {
+        return fieldWidth;
+    }
+
+    public float getFieldHeight() {
+        return fieldHeight;
+    }
+
+    public float getPlayerWidth() {
+        return playerWidth;
+    }
+
+    public float getPlayerHeight() {
+        return playerHeight;
+    }
+
+    /** 記録の終了までのステップ数（不明の場合は -1） */
+    public long getRecordedSteps() {
+        return recordedSteps;
+    }
+
+    /** 記録時の最終スコア（不明の場合は -1） */
+    public int getRecordedScore() {
+        return recordedScore;
+    }
+
+    private int readByte() {
+        if (pos >= data.length) {
+            throw new IllegalArgumentException("truncated replay session at byte " + pos);
+        }
+        return data[pos++] & 0xFF;
+    }
+
+    private float readFloat() {
+        int bits = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            bits |= readByte() << shift;
+        }
+        return Float.intBitsToFloat(bits);
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift >= 64) throw new IllegalArgumentException("malformed varint at byte " + pos);
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.acc_02.engine;
+
+/**
+ * プレイ内容（乱数シード、難易度、ステップごとの傾き）を、事前に確保したリングバッファへ記録するクラス。
+ * 記録したセッションは ReplayPlayer で同じ展開のまま再生できる。
+ *
+ * 傾きの入力元と GameEngine の間に入り、ステップごとに1回読み取った傾きを量子化して記録する。
+ * エンジンには量子化後の値を渡すため、記録中のプレイと再生結果は完全に一致する。
+ * 傾きは前回の値からの差分で書き込み、値が変わらないステップは記録しない。
+ * 手で傾けた入力はステップ間の変化が小さいため、ほとんどのステップは1バイトで済み、
+ * 1時間 (216,000ステップ) のプレイでも数百KBに収まる。
+ *
+ * バッファがいっぱいになると、最も古いセッションから捨てる。
+ * 1つのセッションがバッファ全体に収まらない場合は、それ以降の記録をやめる（それまでの範囲は再生できる）。
+ * ヘッダにはフィールドとプレイヤーの寸法が入るため、セッションはレイアウトの前に開始してよく、
+ * ヘッダは setSizes() ですべての寸法が0より大きくなったときに書き込む（それまではステップを進めないこと）。
+ * 1つのスレッド（シミュレーションスレッド）からのみ使用すること。
+ *
+ * <pre>
+ * セッション: ヘッダ, イベント...
+ *   ヘッダ   : MAGIC, VERSION, seed (8バイト), varint 発生確率, varint 倍率,
+ *              float 初期速度, float レベルごとの速度増加量, varint レベルアップ間隔(秒), varint 発生確率の上限,
+ *              フィールド幅/高さ, プレイヤー幅/高さ (float 各4バイト)
+ *              （VERSION 3 から雨粒の生成を SpawnScheduler で行う。それより前の記録は同じ展開にならないため再生しない）
+ *   短いイベント (最上位ビットが1) : 前のステップからの差分 x, y (各3ビット、-4〜3) を1バイトに詰めたもの
+ *   イベント : タグ (下位2ビットが種類、続く5ビットが前回のイベントからのステップ数。0 の場合は varint で続く)
+ *              TILT_X / TILT_Y / TILT_XY : 変わった軸の差分 (zigzag varint)
+ *              END                      : varint 最後のイベントからのステップ数, varint 最終スコア
+ * </pre>
+ */
+public class ReplayRecorder implements TiltSource {
+
+    static final int MAGIC = 0x52;   // 'R'
+    static final int VERSION = 3;
+    static final int MIN_VERSION = 3; // 再生できる最も古い版
+
+    // 傾きの量子化単位 (m/s^2)。2の累乗の逆数のため、量子化後の値は記録時と再生時で同じfloatになる
+    static final float TILT_STEPS_PER_UNIT = 128.0f;
+
+    static final int TAG_TILT_X = 0;
+    static final int TAG_TILT_Y = 1;
+    static final int TAG_TILT_XY = 2;
+    static final int TAG_END = 3;
+    static final int TAG_TYPE_MASK = 0x03;
+    static final int MAX_INLINE_GAP = 0x1F; // タグの5ビットに入るステップ数
+    static final int SHORT_EVENT_FLAG = 0x80;
+    static final int SHORT_DELTA_MIN = -4;
+    static final int SHORT_DELTA_MAX = 3;
+
+    private static final int HEADER_MAX_BYTES = 2 + 8 + 5 + 5 + 8 + 5 + 5 + 16;
+    private static final int EVENT_MAX_BYTES = 1 + 10 + 5 + 5;
+    private static final int MAX_SESSIONS = 64;
+
+    private final byte[] buffer;
+    private TiltSource source;
+
+    private long writePos = 0; // これまでに書き込んだ総バイト数（バッファ上の位置は writePos % buffer.length）
+    // 保持しているセッションの開始位置（古い順に並べたリング）
+    private final long[] sessionStarts = new long[MAX_SESSIONS];
+    private int firstSession = 0;
+    private int sessionCount = 0;
+
+    // --- 記録中のセッション ---
+    private boolean isRecording = false;
+    private boolean isWaitingForSizes = false; // ヘッダを書き込む前（寸法が決まっていない）
+    private long pendingSeed;
+    private DifficultyProfile pendingProfile;
+    private boolean isTruncated = false;
+    private long step = 0;          // 記録中のセッションで読み取ったステップ数
+    private long lastEventStep = 0;
+    private int lastQx = 0;
+    private int lastQy = 0;
+
+    /**
+     * @param capacityBytes リングバッファの大きさ（生成時に1回だけ確保する）
+     */
+    public ReplayRecorder(int capacityBytes) {
+        if (capacityBytes < HEADER_MAX_BYTES + EVENT_MAX_BYTES) {
+            throw new IllegalArgumentException("capacity too small");
+        }
+        this.buffer = new byte[capacityBytes];
+    }
+
+    /**
+     * 記録する傾きの読み取り元を設定する。
+     */
+    public void setSource(TiltSource source) {
+        this.source = source;
+    }
+
+    /**
+     * 新しいセッションの記録を開始する。記録中のセッションがあれば終了させる（スコアは不明として記録）。
+     */
+    public void beginSession(long seed, DifficultyProfile profile,
+                             float fieldWidth, float fieldHeight, float playerWidth, float playerHeight) {
+        beginSession(seed, profile);
+        setSizes(fieldWidth, fieldHeight, playerWidth, playerHeight);
+    }
+
+    /**
+     * 寸法が決まる前に新しいセッションの記録を開始する。ヘッダは setSizes() で寸法が揃ったときに書き込む。
+     * 記録中のセッションがあれば終了させる（スコアは不明として記録）。
+     */
+    public void beginSession(long seed, DifficultyProfile profile) {
+        if (isRecording) endSession(-1);
+
+        if (sessionCount == MAX_SESSIONS) evictOldest();
+        sessionStarts[(firstSession + sessionCount) % MAX_SESSIONS] = writePos;
+        sessionCount++;
+
+        isRecording = true;
+        isWaitingForSizes = true;
+        isTruncated = false;
+        pendingSeed = seed;
+        pendingProfile = profile;
+        step = 0;
+        lastEventStep = 0;
+        lastQx = 0;
+        lastQy = 0;
+    }
+
+    /**
+     * 現在のフィールドとプレイヤーの寸法を渡す（ステップを進める前に毎回呼んでよい）。
+     * ヘッダの書き込み待ちで、すべての寸法が0より大きい場合にヘッダを書き込む。
+     * 書き込んだ後の寸法の変化は記録しない。
+     */
+    public void setSizes(float fieldWidth, float fieldHeight, float playerWidth, float playerHeight) {
+        if (!isWaitingForSizes) return;
+        if (!(fieldWidth > 0 && fieldHeight > 0 && playerWidth > 0 && playerHeight > 0)) return;
+        isWaitingForSizes = false;
+
+        final DifficultyProfile profile = pendingProfile;
+        pendingProfile = null;
+        if (!ensureSpace(HEADER_MAX_BYTES)) return;
+        writeByte(MAGIC);
+        writeByte(VERSION);
+        for (int shift = 0; shift < 64; shift += 8) {
+            writeByte((int) (pendingSeed >>> shift));
+        }
+        writeVarInt(profile.spawnChance);
+        writeVarInt(profile.scoreMultiplier);
+        writeFloat(profile.baseRainSpeed);
+        writeFloat(profile.rainSpeedPerLevel);
+        writeVarInt(profile.levelUpIntervalSec);
+        writeVarInt(profile.maxSpawnChance);
+        writeFloat(fieldWidth);
+        writeFloat(fieldHeight);
+        writeFloat(playerWidth);
+        writeFloat(playerHeight);
+    }
+
+    /**
+     * 記録中のセッションのヘッダが、寸法が揃うのを待っているかどうか。
+     * true の間はステップを進めないこと（進めたステップは記録されず、再生が一致しなくなる）。
+     */
+    public boolean isWaitingForSizes() {
+        return isWaitingForSizes;
+    }
+
+    /**
+     * 記録中のセッションを終了する（ゲームオーバー時）。
+     * @param finalScore 最終スコア（不明の場合は -1）
+     */
+    public void endSession(int finalScore) {
+        if (!isRecording) return;
+        isRecording = false;
+        if (isWaitingForSizes) {
+            // 1ステップも進まなかったセッションは残さない
+            isWaitingForSizes = false;
+            pendingProfile = null;
+            sessionCount--;
+            return;
+        }
+        if (isTruncated || !ensureSpace(EVENT_MAX_BYTES)) return;
+        writeByte(TAG_END);
+        writeVarLong(step - lastEventStep);
+        writeVarInt(finalScore + 1); // -1 を 0 として書き込む
+    }
+
+    /**
+     * 入力元から傾きを読み取り、量子化して記録する。エンジンには量子化後の値を返す。
+     */
+    @Override
+    public long read() {
+        final long raw = source != null ? source.read() : 0;
+        final int qx = quantize(TiltSlot.x(raw));
+        final int qy = quantize(TiltSlot.y(raw));
+        if (!isRecording || isWaitingForSizes) return pack(qx, qy);
+
+        step++;
+        if ((qx != lastQx || qy != lastQy) && !isTruncated && ensureSpace(EVENT_MAX_BYTES)) {
+            writeTilt(step - lastEventStep, qx - lastQx, qy - lastQy);
+            lastEventStep = step;
+            lastQx = qx;
+            lastQy = qy;
+        }
+        return pack(qx, qy);
+    }
+
+    /**
+     * 最後に記録した（または記録中の）セッションをコピーして返す。セッションがない場合は null。
+     * 返した配列は ReplayPlayer に渡して再生できる。
+     */
+    public byte[] copyLastSession() {
+        if (sessionCount == 0) return null;
+        long start = sessionStarts[(firstSession + sessionCount - 1) % MAX_SESSIONS];
+        byte[] out = new byte[(int) (writePos - start)];
+        int from = (int) (start % buffer.length);
+        int firstPart = Math.min(out.length, buffer.length - from);
+        System.arraycopy(buffer, from, out, 0, firstPart);
+        System.arraycopy(buffer, 0, out, firstPart, out.length - firstPart);
+        return out;
+    }
+
+    /** 保持しているセッションの数 */
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    /** 保持しているセッションの合計バイト数 */
+    public long getBytesUsed() {
+        return sessionCount == 0 ? 0 : writePos - sessionStarts[firstSession];
+    }
+
+    /** 記録中（または最後）のセッションが、バッファに収まらず途中で打ち切られたかどうか */
+    public boolean isTruncated() {
+        return isTruncated;
+    }
+
+    // =========================================================================================
+    // 量子化/符号化
+    // =========================================================================================
+
+    static int quantize(float value) {
+        return Math.round(value * TILT_STEPS_PER_UNIT); // NaN は 0 になる
+    }
+
+    static float dequantize(int q) {
+        return q / TILT_STEPS_PER_UNIT;
+    }
+
+    static long pack(int qx, int qy) {
+        return TiltSlot.pack(dequantize(qx), dequantize(qy));
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // =========================================================================================
+    // リングバッファ
+    // =========================================================================================
+
+    /**
+     * bytes バイト書き込めるよう、必要なら古いセッションを捨てる。
+     * 記録中のセッションだけでバッファが埋まる場合は打ち切りとして false を返す。
+     */
+    private boolean ensureSpace(int bytes) {
+        while (writePos + bytes - sessionStarts[firstSession] > buffer.length) {
+            if (sessionCount == 1) {
+                isTruncated = true;
+                return false;
+            }
+            evictOldest();
+        }
+        return true;
+    }
+
+    private void evictOldest() {
+        firstSession = (firstSession + 1) % MAX_SESSIONS;
+        sessionCount--;
+    }
+
+    private void writeTilt(long gap, int dx, int dy) {
+        if (gap == 1 && isShortDelta(dx) && isShortDelta(dy)) {
+            writeByte(SHORT_EVENT_FLAG | (dx - SHORT_DELTA_MIN) << 3 | (dy - SHORT_DELTA_MIN));
+            return;
+        }
+        final int type = dx == 0 ? TAG_TILT_Y : dy == 0 ? TAG_TILT_X : TAG_TILT_XY;
+        writeTag(type, gap);
+        if (type != TAG_TILT_Y) writeVarInt(zigzag(dx));
+        if (type != TAG_TILT_X) writeVarInt(zigzag(dy));
+    }
+
+    private static boolean isShortDelta(int delta) {
+        return delta >= SHORT_DELTA_MIN && delta <= SHORT_DELTA_MAX;
+    }
+
+    private void writeTag(int type, long gap) {
+        if (gap <= MAX_INLINE_GAP) {
+            writeByte(type | (int) gap << 2);
+        } else {
+            writeByte(type);
+            writeVarLong(gap);
+        }
+    }
+
+    private void writeFloat(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        for (int shift = 0; shift < 32; shift += 8) {
+            writeByte(bits >>> shift);
+        }
+    }
+
+    private void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int value) {
+        buffer[(int) (writePos % buffer.length)] = (byte) value;
+        writePos++;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.acc_02.engine;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 過去のプレイの記録を、固定長のレコードとしてメモリマップしたファイルに追記していくクラス。
+ *
+ * 追記はレコードをマップ上に書いてから件数を更新するだけで、ファイルの書き込み（ページの書き戻し）はOSに任せる。
+ * 上位のスコア、難易度ごとの最高スコア、平均と直近 RECENT_WINDOW 件の平均は小さな索引として保持し、
+ * 追記のたびに更新するため、件数によらず一定時間で取得できる。索引はファイルを開くときに1回だけ全件から作る。
+ * 1つのスレッドからのみ使用すること。
+ *
+ * ファイルの形式（リトルエンディアン）:
+ * <pre>
+ * ヘッダ (16 bytes): MAGIC, VERSION, RECORD_BYTES, 件数
+ * レコード (24 bytes): シード(8), スコア(4), プレイ時間 ms(4), 終了時刻 s(4), 到達レベル(2), 難易度(1), 予備(1)
+ * </pre>
+ */
+public class RunHistory implements Closeable {
+
+    static final int MAGIC = 0x484E5552; // "RUNH"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    public static final int RECORD_BYTES = 24;
+
+    private static final int HEADER_OFFSET_COUNT = 12;
+    private static final int OFFSET_SEED = 0;
+    private static final int OFFSET_SCORE = 8;
+    private static final int OFFSET_DURATION = 12;
+    private static final int OFFSET_ENDED_AT = 16;
+    private static final int OFFSET_LEVEL = 20;
+    private static final int OFFSET_DIFFICULTY = 22;
+
+    private static final int INITIAL_CAPACITY = 1024; // 最初に確保するレコード数（以降は倍々に広げる）
+    private static final int NO_DIFFICULTY = 0xFF;
+
+    /** 索引で保持する上位の件数 */
+    public static final int TOP_N = 10;
+    /** 直近の平均に使う件数 */
+    public static final int RECENT_WINDOW = 20;
+
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private static final int ALL = DIFFICULTIES.length; // 難易度を問わない集計の位置
+    private static final int GROUPS = DIFFICULTIES.length + 1;
+
+    /** 1回のプレイの記録 */
+    public static final class Run {
+        public final int index;              // 記録の通し番号（0から）
+        public final int score;
+        public final int level;              // 到達したレベル
+        public final long durationMillis;    // プレイ時間（シミュレーション時間）
+        public final Difficulty difficulty;  // 不明の場合は null
+        public final long seed;
+        public final long endedAtMillis;     // 終了時刻（秒単位で記録）
+
+        public Run(int index, int score, int level, long durationMillis, Difficulty difficulty, long seed,
+                   long endedAtMillis) {
+            this.index = index;
+            this.score = score;
+            this.level = level;
+            this.durationMillis = durationMillis;
+            this.difficulty = difficulty;
+            this.seed = seed;
+            this.endedAtMillis = endedAtMillis;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity; // マップしているレコード数
+    private int count;
+
+    // --- 索引（[難易度の ordinal] と [ALL]） ---
+    private final int[][] topIndex = new int[GROUPS][TOP_N]; // スコアの高い順（同点は古い順）
+    private final int[][] topScore = new int[GROUPS][TOP_N];
+    private final int[] topSize = new int[GROUPS];
+    private final int[] runCount = new int[GROUPS];
+    private final long[] scoreSum = new long[GROUPS];
+    private final int[][] recentScores = new int[GROUPS][RECENT_WINDOW]; // リングバッファ
+    private final int[] recentPos = new int[GROUPS];
+    private final long[] recentSum = new long[GROUPS];
+
+    private RunHistory(RandomAccessFile file) {
+        this.file = file;
+        this.channel = file.getChannel();
+    }
+
+    /**
+     * 記録ファイルを開く（なければ作る）。既存の記録から索引を作る。
+     * @throws IOException 読み書きできない場合、または形式が正しくない場合
+     */
+    public static RunHistory open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        RunHistory history = new RunHistory(file);
+        try {
+            history.load();
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        return history;
+    }
+
+    private void load() throws IOException {
+        final long length = file.length();
+        int stored = 0;
+        if (length >= HEADER_BYTES) {
+            mapCapacity((int) Math.min((length - HEADER_BYTES) / RECORD_BYTES, Integer.MAX_VALUE / RECORD_BYTES));
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != RECORD_BYTES) {
+                throw new IOException("not a run history file");
+            }
+            // 件数より後ろのレコードは、件数の更新前に中断した追記なので捨てる
+            stored = Math.min(map.getInt(HEADER_OFFSET_COUNT), capacity);
+        }
+        if (capacity < INITIAL_CAPACITY) {
+            mapCapacity(INITIAL_CAPACITY);
+        }
+        map.putInt(0, MAGIC);
+        map.putInt(4, VERSION);
+        map.putInt(8, RECORD_BYTES);
+
+        for (int i = 0; i < stored; i++) {
+            int offset = recordOffset(i);
+            index(i, map.getInt(offset + OFFSET_SCORE), map.get(offset + OFFSET_DIFFICULTY) & 0xFF);
+        }
+        count = stored;
+        map.putInt(HEADER_OFFSET_COUNT, count);
+    }
+
+    /**
+     * ファイルを records 件分の大きさにして、全体をマップし直す。
+     */
+    private void mapCapacity(int records) throws IOException {
+        long size = HEADER_BYTES + (long) records * RECORD_BYTES;
+        if (file.length() < size) file.setLength(size);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        capacity = records;
+    }
+
+    /**
+     * プレイの記録を1件追記し、索引を更新する。
+     * @param difficulty 不明の場合は null（難易度ごとの集計には含めない）
+     */
+    public void append(int score, int level, long durationMillis, Difficulty difficulty, long seed,
+                       long endedAtMillis) throws IOException {
+        if (count == capacity) {
+            mapCapacity(capacity * 2);
+        }
+        final int offset = recordOffset(count);
+        final int d = difficulty != null ? difficulty.ordinal() : NO_DIFFICULTY;
+        map.putLong(offset + OFFSET_SEED, seed);
+        map.putInt(offset + OFFSET_SCORE, score);
+        map.putInt(offset + OFFSET_DURATION, (int) Math.min(durationMillis, Integer.MAX_VALUE));
+        map.putInt(offset + OFFSET_ENDED_AT, (int) (endedAtMillis / 1000));
+        map.putShort(offset + OFFSET_LEVEL, (short) Math.min(level, Short.MAX_VALUE));
+        map.put(offset + OFFSET_DIFFICULTY, (byte) d);
+        map.put(offset + OFFSET_DIFFICULTY + 1, (byte) 0);
+        // レコードを書き終えてから件数を更新する
+        map.putInt(HEADER_OFFSET_COUNT, count + 1);
+        index(count, score, d);
+        count++;
+    }
+
+    private void index(int runIndex, int score, int difficulty) {
+        indexGroup(ALL, runIndex, score);
+        if (difficulty < DIFFICULTIES.length) {
+            indexGroup(difficulty, runIndex, score);
+        }
+    }
+
+    private void indexGroup(int group, int runIndex, int score) {
+        // 上位の一覧（同点の場合は後から来た記録を下に置く）
+        final int[] scores = topScore[group];
+        final int[] indices = topIndex[group];
+        int size = topSize[group];
+        if (size < TOP_N || score > scores[size - 1]) {
+            int i = Math.min(size, TOP_N - 1);
+            while (i > 0 && scores[i - 1] < score) {
+                scores[i] = scores[i - 1];
+                indices[i] = indices[i - 1];
+                i--;
+            }
+            scores[i] = score;
+            indices[i] = runIndex;
+            if (size < TOP_N) topSize[group] = size + 1;
+        }
+
+        // 件数、合計、直近の合計
+        final int n = runCount[group]++;
+        scoreSum[group] += score;
+        final int pos = recentPos[group];
+        if (n >= RECENT_WINDOW) recentSum[group] -= recentScores[group][pos];
+        recentScores[group][pos] = score;
+        recentSum[group] += score;
+        recentPos[group] = (pos + 1) % RECENT_WINDOW;
+    }
+
+    private static int recordOffset(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    private static int group(Difficulty difficulty) {
+        return difficulty != null ? difficulty.ordinal() : ALL;
+    }
+
+    // =========================================================================================
+    // 取得（difficulty が null の場合はすべての難易度）
+    // =========================================================================================
+
+    /** 記録の件数 */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * index 番目の記録を読み取る。
+     */
+    public Run get(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+        final int offset = recordOffset(index);
+        final int d = map.get(offset + OFFSET_DIFFICULTY) & 0xFF;
+        return new Run(index,
+                map.getInt(offset + OFFSET_SCORE),
+                map.getShort(offset + OFFSET_LEVEL),
+                map.getInt(offset + OFFSET_DURATION),
+                d < DIFFICULTIES.length ? DIFFICULTIES[d] : null,
+                map.getLong(offset + OFFSET_SEED),
+                (map.getInt(offset + OFFSET_ENDED_AT) & 0xFFFFFFFFL) * 1000);
+    }
+
+    /**
+     * スコアの高い順に最大 TOP_N 件の記録を返す。
+     */
+    public List<Run> getTopRuns(Difficulty difficulty) {
+        final int g = group(difficulty);
+        List<Run> runs = new ArrayList<>(topSize[g]);
+        for (int i = 0; i < topSize[g]; i++) {
+            runs.add(get(topIndex[g][i]));
+        }
+        return runs;
+    }
+
+    /** 最高スコア（記録がない場合は -1） */
+    public int getBestScore(Difficulty difficulty) {
+        final int g = group(difficulty);
+        return topSize[g] > 0 ? topScore[g][0] : -1;
+    }
+
+    public int getRunCount(Difficulty difficulty) {
+        return runCount[group(difficulty)];
+    }
+
+    /** 全記録の平均スコア（記録がない場合は 0） */
+    public float getAverageScore(Difficulty difficulty) {
+        final int g = group(difficulty);
+        return runCount[g] > 0 ? (float) scoreSum[g] / runCount[g] : 0f;
+    }
+
+    /** 直近 RECENT_WINDOW 件の平均スコア（記録がない場合は 0） */
+    public float getRecentAverageScore(Difficulty difficulty) {
+        final int g = group(difficulty);
+        final int n = Math.min(runCount[g], RECENT_WINDOW);
+        return n > 0 ? (float) recentSum[g] / n : 0f;
+    }
+
+    @Override
+    public void close() throws IOException {
+        map.force();
+        file.close();
+    }
+}
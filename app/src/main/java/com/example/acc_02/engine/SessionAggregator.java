@@ -0,0 +1,145 @@
+package com.example.acc_02.engine;
+
+/**
+ * 1ゲーム分の分析データを逐次集計し、ゲーム終了時に1件の要約イベントにまとめるクラス。
+ *
+ * イベントを都度送らず、到達レベル、避けた雨粒の数（1秒ごとの最大値）、一時停止の回数、
+ * フレーム時間の分布をその場で数えておき、finish() で1件の AnalyticsEvent にする。
+ * 記録のメソッドはフィールドの更新のみで、確保を行わない。1つのスレッド（UIスレッド）からのみ使用すること。
+ */
+public class SessionAggregator {
+
+    // イベント名とパラメータ名（Firebase Analytics の LEVEL_END と Param.LEVEL / SCORE / VALUE に合わせる）
+    public static final String EVENT_NAME = "level_end";
+    public static final String PARAM_LEVEL = "level";                 // 選んだ難易度
+    public static final String PARAM_SCORE = "score";                 // 最終スコア
+    public static final String PARAM_VALUE = "value";                 // プレイ時間（秒、一時停止を含まない）
+    public static final String PARAM_START_TIME = "start_time";       // 開始時刻 (ms)
+    public static final String PARAM_END_TIME = "end_time";           // 終了時刻 (ms)
+    public static final String PARAM_MAX_LEVEL = "max_level";         // 到達したレベル
+    public static final String PARAM_DODGES = "dodges";               // 避けた雨粒の数
+    public static final String PARAM_DODGES_PER_SEC = "dodges_per_sec";
+    public static final String PARAM_PEAK_DODGES_PER_SEC = "peak_dodges_per_sec";
+    public static final String PARAM_PAUSES = "pause_count";
+    public static final String PARAM_FRAMES = "frames";
+    public static final String PARAM_FRAME_P50_MS = "frame_p50_ms";
+    public static final String PARAM_FRAME_P95_MS = "frame_p95_ms";
+    public static final String PARAM_FRAME_MAX_MS = "frame_max_ms";
+    public static final String PARAM_SLOW_FRAMES = "slow_frames";     // slowFrameNanos を超えたフレーム
+
+    private final long slowFrameNanos;
+    private final LatencyHistogram frameTimes = new LatencyHistogram();
+
+    private boolean active = false;
+    private String difficulty;
+    private int scoreMultiplier;
+    private long startTimeMillis;
+    private int maxLevel;
+    private int dodges;
+    private long currentSecond;
+    private int dodgesThisSecond;
+    private int peakDodgesPerSecond;
+    private int pauses;
+    private long frames;
+    private long slowFrames;
+
+    /**
+     * @param slowFrameNanos これを超えたフレームを遅いフレームとして数える
+     */
+    public SessionAggregator(long slowFrameNanos) {
+        this.slowFrameNanos = slowFrameNanos;
+    }
+
+    /**
+     * 新しいゲームの集計を始める（前のゲームの集計は捨てる）。
+     * @param scoreMultiplier スコア倍率（加算されたスコアから避けた雨粒の数を求める）
+     */
+    public void begin(String difficulty, int scoreMultiplier, long startTimeMillis) {
+        this.active = true;
+        this.difficulty = difficulty;
+        this.scoreMultiplier = Math.max(1, scoreMultiplier);
+        this.startTimeMillis = startTimeMillis;
+        maxLevel = 1;
+        dodges = 0;
+        currentSecond = 0;
+        dodgesThisSecond = 0;
+        peakDodgesPerSecond = 0;
+        pauses = 0;
+        frames = 0;
+        slowFrames = 0;
+        frameTimes.reset();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * スコアが加算されたときに呼ぶ。
+     * @param elapsedMillis ゲームの経過時間（1秒ごとの最大値の集計に使う）
+     */
+    public void onScore(int addedScore, long elapsedMillis) {
+        if (!active) return;
+        final int count = addedScore / scoreMultiplier;
+        dodges += count;
+        final long second = elapsedMillis / 1000;
+        if (second != currentSecond) {
+            currentSecond = second;
+            dodgesThisSecond = 0;
+        }
+        dodgesThisSecond += count;
+        if (dodgesThisSecond > peakDodgesPerSecond) peakDodgesPerSecond = dodgesThisSecond;
+    }
+
+    public void onLevelReached(int level) {
+        if (active && level > maxLevel) maxLevel = level;
+    }
+
+    public void onPause() {
+        if (active) pauses++;
+    }
+
+    /**
+     * 1フレーム分の間隔を記録する。
+     */
+    public void onFrame(long intervalNanos) {
+        if (!active) return;
+        frames++;
+        if (intervalNanos > slowFrameNanos) slowFrames++;
+        frameTimes.record(intervalNanos);
+    }
+
+    /**
+     * 集計を終え、要約イベントを返す。集計中でない場合は null。
+     * @param durationMillis プレイ時間（一時停止を含まない）
+     */
+    public AnalyticsEvent finish(int score, long durationMillis, long endTimeMillis) {
+        if (!active) return null;
+        active = false;
+        final double seconds = durationMillis / 1000.0;
+        return new AnalyticsEvent(EVENT_NAME)
+                .put(PARAM_LEVEL, difficulty)
+                .put(PARAM_SCORE, score)
+                .put(PARAM_VALUE, durationMillis / 1000)
+                .put(PARAM_START_TIME, startTimeMillis)
+                .put(PARAM_END_TIME, endTimeMillis)
+                .put(PARAM_MAX_LEVEL, maxLevel)
+                .put(PARAM_DODGES, dodges)
+                .put(PARAM_DODGES_PER_SEC, seconds > 0 ? round2(dodges / seconds) : 0.0)
+                .put(PARAM_PEAK_DODGES_PER_SEC, peakDodgesPerSecond)
+                .put(PARAM_PAUSES, pauses)
+                .put(PARAM_FRAMES, frames)
+                .put(PARAM_FRAME_P50_MS, toMillis(frameTimes.getValueAtPercentile(50.0)))
+                .put(PARAM_FRAME_P95_MS, toMillis(frameTimes.getValueAtPercentile(95.0)))
+                .put(PARAM_FRAME_MAX_MS, toMillis(frameTimes.getMaxValue()))
+                .put(PARAM_SLOW_FRAMES, slowFrames);
+    }
+
+    private static double toMillis(long nanos) {
+        return round2(nanos / 1_000_000.0);
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
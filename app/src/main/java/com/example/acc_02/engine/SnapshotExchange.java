@@ -0,0 +1,54 @@
+package com.example.acc_02.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * シミュレーションスレッドからUIスレッドへ GameSnapshot をロックなしで受け渡すクラス。
+ * 書き込み側のバックバッファと読み取り側のフロントバッファに加え、
+ * 公開済みの受け渡し用バッファを1つ持ち、AtomicIntegerの交換だけで入れ替える。
+ * どちらの側も相手を待たないため、UIの遅いフレームが衝突判定を遅らせることはなく、
+ * 遅いシミュレーションステップがUIをブロックすることもない。
+ */
+public class SnapshotExchange {
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4; // 受け渡し用バッファが未読であることを示すフラグ
+
+    private final GameSnapshot[] buffers = new GameSnapshot[3];
+    private final AtomicInteger ready = new AtomicInteger(1); // 受け渡し用バッファのインデックス + FRESH
+    private int back = 0;  // 書き込み側専用
+    private int front = 2; // 読み取り側専用
+
+    public SnapshotExchange(int capacity) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new GameSnapshot(capacity);
+        }
+    }
+
+    /**
+     * 書き込み用のスナップショットを取得する（シミュレーション側から呼ぶ）。
+     */
+    public GameSnapshot back() {
+        return buffers[back];
+    }
+
+    /**
+     * 書き込み済みのスナップショットを公開する（シミュレーション側から呼ぶ）。
+     */
+    public void publish() {
+        int previous = ready.getAndSet(back | FRESH);
+        back = previous & INDEX_MASK;
+    }
+
+    /**
+     * 最新の公開済みスナップショットを取得する（UIスレッドから呼ぶ）。
+     * 新しいスナップショットが無い場合は前回と同じものを返す。
+     */
+    public GameSnapshot acquire() {
+        if ((ready.get() & FRESH) != 0) {
+            int previous = ready.getAndSet(front);
+            front = previous & INDEX_MASK;
+        }
+        return buffers[front];
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.acc_02.engine;
+
+/**
+ * 雨粒を生成するステップと横位置を、レベルごとに前もって計算しておくスケジューラ。
+ *
+ * 生成はポアソン過程（指数分布の間隔）に最小間隔（不感時間）を加えたもので、平均の頻度は指定どおりのまま、
+ * 同じ瞬間に何個も降るような偏った集中を起こさない。間隔はステップ数で求めるため、
+ * 結果は描画のフレームレートに依存しない。
+ * レベルの開始時に、そのレベルの系列をシードとレベルだけから決まる乱数で BATCH_SIZE 件ずつ先に作っておき、
+ * 各ステップでは配列の先頭を見るだけで生成するかどうかがわかる（乱数を引かない）。
+ * 1つのスレッドからのみ使用すること。
+ */
+public class SpawnScheduler {
+
+    /** 一度に作る生成予定の件数 */
+    public static final int BATCH_SIZE = 128;
+    /** 連続する生成の最小間隔（ステップ数） */
+    public static final int MIN_GAP_STEPS = 2;
+
+    private final GameRandom random = new GameRandom(0);
+    private final long[] spawnSteps = new long[BATCH_SIZE]; // 生成するステップ（昇順）
+    private final float[] spawnX = new float[BATCH_SIZE];   // 横位置（0.0〜1.0、フィールド幅に対する割合）
+    private int head = 0;
+    private int count = 0;
+
+    private long seed;
+    private float meanGapSteps = Float.POSITIVE_INFINITY; // 生成の平均間隔（ステップ数）
+    private long lastStep;                                 // 最後に予定に入れた生成のステップ
+
+    /**
+     * ゲームの開始時に呼ぶ。
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        head = 0;
+        count = 0;
+        meanGapSteps = Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * レベルの開始時に呼び、以降の生成予定をこのレベルの頻度で作り直す。
+     * @param level レベル（系列の乱数はシードとレベルだけで決まる）
+     * @param spawnsPerSec 毎秒の平均の生成数
+     * @param startStep レベルの開始ステップ（このステップ以降に生成する）
+     */
+    public void startLevel(int level, float spawnsPerSec, long startStep) {
+        random.setSeed(seed ^ (level * 0x9E3779B97F4A7C15L));
+        meanGapSteps = spawnsPerSec > 0 ? GameEngine.STEPS_PER_SECOND / spawnsPerSec : Float.POSITIVE_INFINITY;
+        lastStep = startStep - 1;
+        head = 0;
+        count = 0;
+        fillBatch();
+    }
+
+    /**
+     * 指定したステップで生成する雨粒があれば横位置を返し、予定から取り除く。
+     * @return 横位置（0.0〜1.0）。生成しない場合は -1
+     */
+    public float poll(long step) {
+        if (head == count) {
+            fillBatch();
+            if (count == 0) return -1;
+        }
+        if (spawnSteps[head] > step) return -1;
+        return spawnX[head++];
+    }
+
+    /**
+     * 次の BATCH_SIZE 件の生成予定を作る。
+     */
+    private void fillBatch() {
+        head = 0;
+        count = 0;
+        if (Float.isInfinite(meanGapSteps)) return;
+        // 平均 meanGapSteps のうち MIN_GAP_STEPS を固定の間隔とし、残りを指数分布で引く
+        final float randomGap = Math.max(0f, meanGapSteps - MIN_GAP_STEPS);
+        long step = lastStep;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            double exponential = -Math.log(1.0 - random.nextFloat());
+            step += MIN_GAP_STEPS + (long) Math.floor(randomGap * exponential + random.nextFloat());
+            spawnSteps[i] = step;
+            spawnX[i] = random.nextFloat();
+        }
+        lastStep = step;
+        count = BATCH_SIZE;
+    }
+}
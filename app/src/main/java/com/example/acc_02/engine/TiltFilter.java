@@ -0,0 +1,28 @@
+package com.example.acc_02.engine;
+
+/**
+ * 傾きセンサーの値（1軸分）を平滑化するフィルタ。
+ * サンプルごとのタイムスタンプを使うため、サンプリング周期が変わっても同じ特性になる。
+ */
+public interface TiltFilter {
+
+    /**
+     * @param value 新しいサンプルの値
+     * @param timestampNanos サンプルの時刻（ナノ秒、単調増加）
+     * @return 平滑化した値
+     */
+    float filter(float value, long timestampNanos);
+
+    /**
+     * 内部状態を破棄する（次のサンプルはそのまま出力される）。
+     */
+    void reset();
+
+    /**
+     * カットオフ周波数 cutoffHz、経過時間 dtSec の一次ローパスの係数。
+     */
+    static float smoothingFactor(float cutoffHz, float dtSec) {
+        float tau = 1.0f / (2.0f * (float) Math.PI * cutoffHz);
+        return dtSec / (tau + dtSec);
+    }
+}
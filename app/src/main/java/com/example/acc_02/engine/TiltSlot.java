@@ -0,0 +1,40 @@
+package com.example.acc_02.engine;
+
+/**
+ * 最新の傾き (x, y) を、センサースレッドからシミュレーションスレッドへロックなしで渡す受け渡し口。
+ *
+ * 書き込み側は1スレッドのみ。2つのfloatを1つのlongに詰めて volatile で書き込むため、
+ * 読み取り側は x と y の組み合わせが食い違った値を読むことがない。
+ * 中間の値は上書きされ、読み取り側は常に最新の値だけを受け取る。
+ */
+public class TiltSlot implements TiltSource {
+
+    private volatile long packed = 0; // x, y ともに 0.0f
+
+    /**
+     * 最新の傾きを公開する（書き込みスレッドのみ）。
+     */
+    public void publish(float x, float y) {
+        packed = pack(x, y);
+    }
+
+    /**
+     * 最新の傾きを読み取る。x(packed) / y(packed) で取り出す。
+     */
+    @Override
+    public long read() {
+        return packed;
+    }
+
+    public static long pack(float x, float y) {
+        return ((long) Float.floatToRawIntBits(x) << 32) | (Float.floatToRawIntBits(y) & 0xFFFFFFFFL);
+    }
+
+    public static float x(long packed) {
+        return Float.intBitsToFloat((int) (packed >>> 32));
+    }
+
+    public static float y(long packed) {
+        return Float.intBitsToFloat((int) packed);
+    }
+}
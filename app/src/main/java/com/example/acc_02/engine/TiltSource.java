@@ -0,0 +1,13 @@
+package com.example.acc_02.engine;
+
+/**
+ * シミュレーションへ傾きを渡す入力元。GameEngine がステップごとに1回だけ読み取る。
+ * 値は TiltSlot と同じく、2つのfloat (x, y) を1つのlongに詰めた形式で返す。
+ */
+public interface TiltSource {
+
+    /**
+     * 現在のステップで使う傾きを返す。TiltSlot.x(packed) / TiltSlot.y(packed) で取り出す。
+     */
+    long read();
+}
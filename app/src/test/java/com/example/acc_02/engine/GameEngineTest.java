@@ -0,0 +1,224 @@
+package com.example.acc_02.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * GameEngine をJVM上で固定ステップ実行して、ゲームルールを検証するテスト。
+ */
+public class GameEngineTest {
+
+    private static final float FIELD_WIDTH = 1080;
+    private static final float FIELD_HEIGHT = 2000;
+    private static final int STEPS_PER_SECOND = GameEngine.STEPS_PER_SECOND;
+
+    /** テスト用の手動クロック */
+    private static class ManualClock implements GameClock {
+        long now = 0;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+
+    private ManualClock clock;
+    private GameEngine engine;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock();
+        engine = new GameEngine(clock, 0);
+        engine.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        // 雨粒が届かない画面外にプレイヤーを置く
+        engine.setPlayerBounds(0, FIELD_HEIGHT + 500, 100, 100);
+    }
+
+    private void runSteps(int steps) {
+        for (int i = 0; i < steps && !engine.isGameOver(); i++) {
+            engine.step();
+        }
+    }
+
+    @Test
+    public void sameSeedProducesSameGame() {
+        GameEngine other = new GameEngine(new ManualClock(), 0);
+        other.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        other.setPlayerBounds(0, FIELD_HEIGHT + 500, 100, 100);
+
+        engine.startGame(10, 5, 42L);
+        other.startGame(10, 5, 42L);
+        for (int i = 0; i < 10_000; i++) {
+            engine.step();
+            other.step();
+        }
+
+        assertTrue(engine.getScore() > 0);
+        assertEquals(engine.getScore(), other.getScore());
+        assertEquals(engine.getRaindrops().size(), other.getRaindrops().size());
+    }
+
+    @Test
+    public void levelAdvancesEveryFifteenSecondsOfSimulationTime() {
+        engine.startGame(5, 1, 1L);
+        assertEquals(1, engine.getLevel());
+        assertEquals(15, engine.getSecondsToNextLevel());
+
+        runSteps(15 * STEPS_PER_SECOND - 1);
+        assertEquals(1, engine.getLevel());
+        assertEquals(1, engine.getSecondsToNextLevel());
+
+        runSteps(1);
+        assertEquals(2, engine.getLevel());
+        assertEquals(GameEngine.BASE_RAIN_SPEED + GameEngine.RAIN_SPEED_PER_LEVEL, engine.getRainSpeed(), 0.001f);
+        assertEquals(6, engine.getRainSpawnChance());
+    }
+
+    @Test
+    public void spawnChanceIsCapped() {
+        engine.startGame(GameEngine.MAX_RAIN_SPAWN_CHANCE, 1, 1L);
+        runSteps(5 * 15 * STEPS_PER_SECOND);
+        assertEquals(6, engine.getLevel());
+        assertEquals(GameEngine.MAX_RAIN_SPAWN_CHANCE, engine.getRainSpawnChance());
+    }
+
+    @Test
+    public void profileSetsSpeedCurveIntervalAndCap() {
+        engine.startGame(new DifficultyProfile(3, 2, 1000f, 100f, 5, 4), 1L);
+        assertEquals(5, engine.getSecondsToNextLevel());
+        assertEquals(1000f, engine.getRainSpeed(), 0.001f);
+
+        runSteps(3 * 5 * STEPS_PER_SECOND);
+        assertEquals(4, engine.getLevel());
+        assertEquals(1300f, engine.getRainSpeed(), 0.001f);
+        assertEquals(4, engine.getRainSpawnChance()); // 3 → 4 で上限
+    }
+
+    @Test
+    public void spawnRateMatchesChancePerSecond() {
+        engine.startGame(10, 1, 7L);
+        // レベルが上がらない範囲（14秒）で、画面下まで届いた雨粒の数から発生頻度を確認する
+        runSteps(14 * STEPS_PER_SECOND);
+        int spawned = engine.getScore() + engine.getRaindrops().size();
+        float expected = 10 * GameEngine.SPAWNS_PER_SEC_PER_CHANCE * 14; // 84個
+        assertEquals(expected, spawned, expected * 0.35f);
+    }
+
+    @Test
+    public void scoreUsesMultiplier() {
+        engine.startGame(20, 3, 3L);
+        runSteps(10 * STEPS_PER_SECOND);
+        assertTrue(engine.getScore() > 0);
+        assertEquals(0, engine.getScore() % 3);
+    }
+
+    @Test
+    public void updateRunsFixedStepsFromClock() {
+        engine.startGame(5, 1, 1L);
+        assertEquals(0, engine.update()); // 最初の呼び出しは基準時刻の取得のみ
+
+        clock.now += GameEngine.STEP_NANOS * 3;
+        assertEquals(3, engine.update());
+
+        clock.now += GameEngine.STEP_NANOS / 2;
+        assertEquals(0, engine.update());
+        assertEquals(0.5f, engine.getInterpolation(), 0.01f);
+    }
+
+    @Test
+    public void pausedTimeIsNotSimulated() {
+        engine.startGame(5, 1, 1L);
+        engine.update();
+        clock.now += GameEngine.STEP_NANOS * 10;
+        engine.update();
+        long elapsed = engine.getElapsedNanos();
+
+        // 停止中に時間が経過しても、再開時に計測し直せばシミュレーションされない
+        clock.now += 60_000_000_000L;
+        engine.resyncClock();
+        assertEquals(0, engine.update());
+        assertEquals(elapsed, engine.getElapsedNanos());
+    }
+
+    @Test
+    public void collisionEndsGameAndClearsRaindrops() {
+        engine.startGame(30, 1, 5L);
+        // 画面下部の全幅にプレイヤーを置くと、いずれ必ず衝突する
+        engine.setPlayerBounds(0, FIELD_HEIGHT - 300, FIELD_WIDTH, 200);
+        runSteps(60 * STEPS_PER_SECOND);
+
+        assertTrue(engine.isGameOver());
+        assertEquals(0, engine.getRaindrops().size());
+        int score = engine.getScore();
+        engine.step();
+        assertEquals(score, engine.getScore()); // ゲームオーバー後は進まない
+    }
+
+    @Test
+    public void tiltMovesPlayerOncePerStepWithinField() {
+        TiltSlot tilt = new TiltSlot();
+        engine.setTiltInput(tilt);
+        engine.setPlayerSize(100, 100);
+        engine.startGame(0, 1, 1L);
+        engine.resetPlayerPosition();
+
+        engine.step(); // 最初のステップでフィールド中央に置かれる
+        assertEquals((FIELD_WIDTH - 100) / 2, engine.getPlayerX(), 0.001f);
+        assertEquals((FIELD_HEIGHT - 100) / 2, engine.getPlayerY(), 0.001f);
+
+        // 左に傾ける（x成分が正）と、1秒で PLAYER_SPEED_PER_TILT × 傾き だけ左へ動く
+        float startX = engine.getPlayerX();
+        tilt.publish(1.0f, 0.0f);
+        runSteps(STEPS_PER_SECOND);
+        assertEquals(startX - GameEngine.PLAYER_SPEED_PER_TILT, engine.getPlayerX(), 0.5f);
+
+        // フィールドの端で止まる
+        tilt.publish(9.8f, 0.0f);
+        runSteps(10 * STEPS_PER_SECOND);
+        assertEquals(0, engine.getPlayerX(), 0.0f);
+        tilt.publish(-9.8f, 0.0f);
+        runSteps(10 * STEPS_PER_SECOND);
+        assertEquals(FIELD_WIDTH - 100, engine.getPlayerX(), 0.0f);
+    }
+
+    @Test
+    public void fastRaindropDoesNotTunnelThroughPlayer() {
+        RaindropPool pool = new RaindropPool(4);
+        RaindropCollider collider = new RaindropCollider();
+        // 1ステップで 300px 移動し、高さ 60px のプレイヤーを完全に飛び越える雨粒
+        pool.add(500, 1300, 50, 50);
+        pool.prevY[0] = 1000;
+
+        assertEquals(0, collider.findCollision(pool, 480, 1100, 60, 60));
+        assertEquals(-1, collider.findCollision(pool, 700, 1100, 60, 60));
+    }
+
+    @Test
+    public void orderedBroadPhaseFindsSameHitsAsLinearScan() {
+        // ゲームと同じく、上端で生成して同じ距離ずつ動かした雨粒（添字の昇順に下から並ぶ）
+        RaindropPool pool = new RaindropPool(64);
+        GameRandom random = new GameRandom(7L);
+        for (int step = 0; step < 120; step++) {
+            for (int i = 0; i < pool.size(); i++) {
+                pool.prevY[i] = pool.y[i];
+                pool.y[i] += 35;
+            }
+            if (step % 3 == 0) pool.add(random.nextInt(1000), 0, 50, 50);
+        }
+
+        RaindropCollider collider = new RaindropCollider();
+        for (int top = -100; top < FIELD_HEIGHT; top += 7) {
+            for (int left = 0; left < 1000; left += 45) {
+                boolean expected = false;
+                for (int i = 0; i < pool.size(); i++) {
+                    expected |= left < pool.x[i] + pool.w[i] && left + 60 > pool.x[i]
+                            && top < pool.y[i] + pool.h[i] && top + 60 > pool.prevY[i];
+                }
+                int hit = collider.findCollision(pool, left, top, 60, 60);
+                assertEquals(expected, hit >= 0);
+            }
+        }
+    }
+}
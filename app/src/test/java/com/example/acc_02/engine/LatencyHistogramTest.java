@@ -0,0 +1,45 @@
+package com.example.acc_02.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * LatencyHistogram のバケット分割とパーセンタイル計算のテスト。
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBoundsContainValue() {
+        for (long value = 0; value < 1_000_000; value = value * 2 + 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(value <= upper);
+            // 相対誤差は 1/16 以内
+            assertTrue(upper - value <= Math.max(0, value / 16));
+        }
+    }
+
+    @Test
+    public void percentilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L); // 1μs〜1ms
+        }
+
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 16.0);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 16.0);
+        assertEquals(1_000_000, histogram.getMaxValue(), 1_000_000 / 16.0);
+    }
+
+    @Test
+    public void resetClearsCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(123);
+        histogram.record(-5);
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
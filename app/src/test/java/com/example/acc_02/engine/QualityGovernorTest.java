@@ -0,0 +1,88 @@
+package com.example.acc_02.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * QualityGovernor の段階の上げ下げ（ヒステリシスと温度状態の下限）のテスト。
+ */
+public class QualityGovernorTest {
+
+    private static final QualityGovernor.Thresholds THRESHOLDS = new QualityGovernor.Thresholds(20.0f, 17.5f, 10, 3);
+
+    private long now = 1_000_000_000L;
+
+    /** 同じ間隔のフレームを1区間分渡し、段階が変わったかどうかを返す */
+    private boolean window(QualityGovernor governor, float frameMillis) {
+        boolean changed = false;
+        for (int i = 0; i < THRESHOLDS.windowFrames; i++) {
+            now += (long) (frameMillis * 1_000_000L);
+            changed |= governor.onFrame(now);
+        }
+        return changed;
+    }
+
+    private QualityGovernor newGovernor() {
+        QualityGovernor governor = new QualityGovernor();
+        governor.setThresholds(THRESHOLDS);
+        governor.onFrame(now); // 最初のフレームは間隔の基準のみ
+        return governor;
+    }
+
+    @Test
+    public void slowWindowsDegradeOneTierEach() {
+        QualityGovernor governor = newGovernor();
+        assertFalse(window(governor, 16.7f));
+        assertEquals(QualityGovernor.TIER_FULL, governor.getTier());
+
+        for (int tier = 1; tier <= QualityGovernor.MAX_TIER; tier++) {
+            assertTrue(window(governor, 33.3f));
+            assertEquals(tier, governor.getTier());
+        }
+        assertFalse(window(governor, 33.3f));
+        assertEquals(QualityGovernor.MAX_TIER, governor.getTier());
+    }
+
+    @Test
+    public void recoveryNeedsConsecutiveGoodWindows() {
+        QualityGovernor governor = newGovernor();
+        window(governor, 33.3f);
+        assertEquals(1, governor.getTier());
+
+        // しきい値の間（17.5〜20ms）は段階を保ち、良い区間の数もやり直しになる
+        window(governor, 16.7f);
+        window(governor, 16.7f);
+        window(governor, 18.5f);
+        window(governor, 16.7f);
+        window(governor, 16.7f);
+        assertEquals(1, governor.getTier());
+
+        assertTrue(window(governor, 16.7f));
+        assertEquals(QualityGovernor.TIER_FULL, governor.getTier());
+    }
+
+    @Test
+    public void thermalStatusSetsLowerBound() {
+        QualityGovernor governor = newGovernor();
+        assertTrue(governor.setThermalStatus(3)); // SEVERE
+        assertEquals(QualityGovernor.TIER_SIMPLE_EFFECTS, governor.getTier());
+
+        // フレーム時間が良くても下限より上がらない
+        for (int i = 0; i < 10; i++) window(governor, 8.3f);
+        assertEquals(QualityGovernor.TIER_SIMPLE_EFFECTS, governor.getTier());
+
+        assertTrue(governor.setThermalStatus(0));
+        assertEquals(QualityGovernor.TIER_FULL, governor.getTier());
+    }
+
+    @Test
+    public void longGapsAreIgnored() {
+        QualityGovernor governor = newGovernor();
+        for (int i = 0; i < 100; i++) {
+            now += 1_000_000_000L; // 一時停止などで空いた間隔
+            governor.onFrame(now);
+        }
+        assertEquals(QualityGovernor.TIER_FULL, governor.getTier());
+    }
+}
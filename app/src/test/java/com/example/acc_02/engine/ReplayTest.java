@@ -0,0 +1,231 @@
+package com.example.acc_02.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * ReplayRecorder / ReplayPlayer による記録と再生のテスト。
+ */
+public class ReplayTest {
+
+    private static final float FIELD_WIDTH = 1080;
+    private static final float FIELD_HEIGHT = 2000;
+    private static final float PLAYER_SIZE = 150;
+    private static final DifficultyProfile PROFILE = new DifficultyProfile(10, 5, 1100f, 70f, 12, 25);
+    private static final long STEPS_PER_HOUR = 3600L * GameEngine.STEPS_PER_SECOND;
+
+    /**
+     * 手で傾けたような入力（ゆっくりした揺れ + センサーのノイズを平滑化したもの）を返す入力元。
+     */
+    private static class HandTilt implements TiltSource {
+        private final GameRandom random = new GameRandom(7);
+        private final OneEuroFilter filterX = new OneEuroFilter(1.0f, 0.05f, 1.0f);
+        private final OneEuroFilter filterY = new OneEuroFilter(1.0f, 0.05f, 1.0f);
+        private long step = 0;
+
+        @Override
+        public long read() {
+            step++;
+            long t = step * GameEngine.STEP_NANOS;
+            double sec = t / 1e9;
+            float x = (float) (3.0 * Math.sin(sec * 0.7)) + (random.nextFloat() - 0.5f) * 0.2f;
+            float y = (float) (1.0 * Math.sin(sec * 0.3)) + (random.nextFloat() - 0.5f) * 0.2f;
+            return TiltSlot.pack(filterX.filter(x, t), filterY.filter(y, t));
+        }
+    }
+
+    private static GameEngine newEngine(TiltSource tilt) {
+        GameEngine engine = new GameEngine(() -> 0L, 0);
+        engine.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        engine.setPlayerSize(PLAYER_SIZE, PLAYER_SIZE);
+        engine.setTiltInput(tilt);
+        return engine;
+    }
+
+    @Test
+    public void replayReproducesRecordedGame() {
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024);
+        recorder.setSource(new HandTilt());
+        GameEngine live = newEngine(recorder);
+        live.startGame(PROFILE, 1234L);
+        live.resetPlayerPosition();
+        recorder.beginSession(1234L, PROFILE, FIELD_WIDTH, FIELD_HEIGHT, PLAYER_SIZE, PLAYER_SIZE);
+
+        long steps = 0;
+        float[] xs = new float[20_000];
+        while (!live.isGameOver() && steps < xs.length) {
+            live.step();
+            xs[(int) steps++] = live.getPlayerX();
+        }
+        assertTrue("game should end by collision", live.isGameOver());
+        recorder.endSession(live.getScore());
+
+        ReplayPlayer replay = new ReplayPlayer(recorder.copyLastSession());
+        assertEquals(steps, replay.getRecordedSteps());
+        assertEquals(live.getScore(), replay.getRecordedScore());
+
+        GameEngine replayed = newEngine(replay);
+        replayed.setFieldSize(replay.getFieldWidth(), replay.getFieldHeight());
+        replayed.setPlayerSize(replay.getPlayerWidth(), replay.getPlayerHeight());
+        assertEquals(PROFILE, replay.getProfile());
+        replayed.startGame(replay.getProfile(), replay.getSeed());
+        replayed.resetPlayerPosition();
+        for (int i = 0; i < steps; i++) {
+            assertFalse(replayed.isGameOver());
+            replayed.step();
+            assertEquals(xs[i], replayed.getPlayerX(), 0.0f);
+        }
+        assertTrue(replayed.isGameOver());
+        assertTrue(replay.isFinished());
+        assertEquals(live.getScore(), replayed.getScore());
+    }
+
+    @Test
+    public void hourOfPlayFitsInFewHundredKilobytes() {
+        ReplayRecorder recorder = new ReplayRecorder(1024 * 1024);
+        recorder.setSource(new HandTilt());
+        recorder.beginSession(1L, PROFILE, FIELD_WIDTH, FIELD_HEIGHT, PLAYER_SIZE, PLAYER_SIZE);
+        for (long i = 0; i < STEPS_PER_HOUR; i++) {
+            recorder.read();
+        }
+        recorder.endSession(0);
+
+        assertFalse(recorder.isTruncated());
+        assertTrue("bytes used: " + recorder.getBytesUsed(), recorder.getBytesUsed() < 400 * 1024);
+        assertEquals(STEPS_PER_HOUR, new ReplayPlayer(recorder.copyLastSession()).getRecordedSteps());
+    }
+
+    @Test
+    public void fullBufferEvictsOldestSessions() {
+        ReplayRecorder recorder = new ReplayRecorder(4 * 1024);
+        recorder.setSource(new HandTilt());
+        for (int session = 0; session < 10; session++) {
+            recorder.beginSession(session, PROFILE, FIELD_WIDTH, FIELD_HEIGHT, PLAYER_SIZE, PLAYER_SIZE);
+            for (int i = 0; i < 300; i++) {
+                recorder.read();
+            }
+            recorder.endSession(session);
+        }
+
+        assertTrue(recorder.getSessionCount() < 10);
+        assertTrue(recorder.getBytesUsed() <= 4 * 1024);
+        ReplayPlayer last = new ReplayPlayer(recorder.copyLastSession());
+        assertEquals(9L, last.getSeed());
+        assertEquals(9, last.getRecordedScore());
+        assertEquals(300L, last.getRecordedSteps());
+    }
+
+    @Test
+    public void sessionLargerThanBufferIsTruncated() {
+        ReplayRecorder recorder = new ReplayRecorder(1024);
+        recorder.setSource(new HandTilt());
+        recorder.beginSession(1L, PROFILE, FIELD_WIDTH, FIELD_HEIGHT, PLAYER_SIZE, PLAYER_SIZE);
+        for (int i = 0; i < 10_000; i++) {
+            recorder.read();
+        }
+        recorder.endSession(0);
+
+        assertTrue(recorder.isTruncated());
+        ReplayPlayer replay = new ReplayPlayer(recorder.copyLastSession());
+        assertEquals(-1L, replay.getRecordedSteps());
+        while (!replay.isFinished()) {
+            replay.read();
+        }
+        assertTrue(replay.getStep() > 0);
+    }
+
+    @Test
+    public void cutOffFileIsRejectedAsInvalid() {
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024);
+        recorder.setSource(new HandTilt());
+        recorder.beginSession(1L, PROFILE, FIELD_WIDTH, FIELD_HEIGHT, PLAYER_SIZE, PLAYER_SIZE);
+        for (int i = 0; i < 600; i++) {
+            recorder.read();
+        }
+        recorder.endSession(0);
+        byte[] session = recorder.copyLastSession();
+
+        // 書き込みの途中で切れたファイル（どこで切れても範囲外の読み取りにはならない）
+        for (int length = 0; length < session.length; length++) {
+            byte[] cut = Arrays.copyOf(session, length);
+            try {
+                ReplayPlayer replay = new ReplayPlayer(cut);
+                while (!replay.isFinished()) {
+                    replay.read();
+                }
+            } catch (IllegalArgumentException expected) {
+                // 形式が正しくないものとして扱われる
+            }
+        }
+
+        // 終端のない可変長整数
+        byte[] corrupt = Arrays.copyOf(session, session.length + 16);
+        Arrays.fill(corrupt, session.length - 2, corrupt.length, (byte) 0xFF);
+        try {
+            new ReplayPlayer(corrupt);
+            fail("corrupt session should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // 形式が正しくないものとして扱われる
+        }
+    }
+
+    @Test
+    public void sessionStartedBeforeLayoutWritesHeaderOnceSizesAreKnown() {
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024);
+        recorder.setSource(new HandTilt());
+        // ゲーム開始時はまだレイアウトされていない（GameManager と同じ順序）
+        recorder.beginSession(99L, PROFILE);
+        recorder.setSizes(0, 0, 0, 0);
+        assertTrue(recorder.isWaitingForSizes());
+        recorder.setSizes(FIELD_WIDTH, FIELD_HEIGHT, 0, 0); // プレイヤー画像はまだ
+        assertTrue(recorder.isWaitingForSizes());
+
+        GameEngine live = new GameEngine(() -> 0L, 0);
+        live.setTiltInput(recorder);
+        live.startGame(PROFILE, 99L);
+        live.resetPlayerPosition();
+        recorder.setSizes(FIELD_WIDTH, FIELD_HEIGHT, PLAYER_SIZE, PLAYER_SIZE);
+        assertFalse(recorder.isWaitingForSizes());
+        live.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        live.setPlayerSize(PLAYER_SIZE, PLAYER_SIZE);
+        recorder.setSizes(1, 1, 1, 1); // ヘッダを書き込んだ後の変化は記録しない
+
+        long steps = 0;
+        while (!live.isGameOver() && steps < 20_000) {
+            live.step();
+            steps++;
+        }
+        assertTrue("game should end by collision", live.isGameOver());
+        recorder.endSession(live.getScore());
+
+        ReplayPlayer replay = new ReplayPlayer(recorder.copyLastSession());
+        assertEquals(FIELD_WIDTH, replay.getFieldWidth(), 0.0f);
+        assertEquals(FIELD_HEIGHT, replay.getFieldHeight(), 0.0f);
+        assertEquals(PLAYER_SIZE, replay.getPlayerWidth(), 0.0f);
+        assertEquals(PLAYER_SIZE, replay.getPlayerHeight(), 0.0f);
+
+        GameEngine replayed = newEngine(replay);
+        replayed.startGame(replay.getProfile(), replay.getSeed());
+        replayed.resetPlayerPosition();
+        for (long i = 0; i < steps; i++) {
+            replayed.step();
+        }
+        assertTrue(replayed.isGameOver());
+        assertEquals(live.getScore(), replayed.getScore());
+    }
+
+    @Test
+    public void sessionEndedBeforeLayoutIsDropped() {
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024);
+        recorder.beginSession(1L, PROFILE, FIELD_WIDTH, FIELD_HEIGHT, PLAYER_SIZE, PLAYER_SIZE);
+        recorder.endSession(0);
+        recorder.beginSession(2L, PROFILE);
+        recorder.endSession(-1);
+
+        assertEquals(1, recorder.getSessionCount());
+        assertEquals(1L, new ReplayPlayer(recorder.copyLastSession()).getSeed());
+    }
+}
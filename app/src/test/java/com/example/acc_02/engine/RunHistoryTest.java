@@ -0,0 +1,117 @@
+package com.example.acc_02.engine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * RunHistory の追記、索引、再読み込みのテスト。
+ */
+public class RunHistoryTest {
+
+    private static final int RUNS = 100_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Difficulty difficultyOf(int i) {
+        return Difficulty.values()[i % 3];
+    }
+
+    private static int scoreOf(GameRandom random) {
+        return random.nextInt(5000);
+    }
+
+    private static void appendRuns(RunHistory history, int runs) throws IOException {
+        GameRandom random = new GameRandom(42);
+        for (int i = 0; i < runs; i++) {
+            history.append(scoreOf(random), 1 + i % 7, 1000L * i, difficultyOf(i), i, 1_700_000_000_000L + i * 1000L);
+        }
+    }
+
+    /**
+     * 索引を使わずに全件から求めた上位のスコア。
+     */
+    private static List<Integer> expectedTop(int runs, Difficulty difficulty) {
+        GameRandom random = new GameRandom(42);
+        List<Integer> scores = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            int score = scoreOf(random);
+            if (difficulty == null || difficultyOf(i) == difficulty) scores.add(score);
+        }
+        scores.sort((a, b) -> b - a);
+        return scores.subList(0, Math.min(RunHistory.TOP_N, scores.size()));
+    }
+
+    private static void assertIndexes(RunHistory history, int runs) {
+        assertEquals(runs, history.size());
+        for (Difficulty difficulty : new Difficulty[] {null, Difficulty.EASY, Difficulty.NORMAL, Difficulty.HARD}) {
+            List<Integer> expected = expectedTop(runs, difficulty);
+            List<RunHistory.Run> top = history.getTopRuns(difficulty);
+            assertEquals(expected.size(), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals((int) expected.get(i), top.get(i).score);
+                if (difficulty != null) assertEquals(difficulty, top.get(i).difficulty);
+            }
+            assertEquals((int) expected.get(0), history.getBestScore(difficulty));
+        }
+    }
+
+    @Test
+    public void indexesMatchFullScanAndSurviveReopen() throws IOException {
+        File file = folder.newFile("runs.bin");
+        try (RunHistory history = RunHistory.open(file)) {
+            appendRuns(history, RUNS);
+            assertIndexes(history, RUNS);
+        }
+        assertEquals(RunHistory.HEADER_BYTES + 131072L * RunHistory.RECORD_BYTES, file.length());
+
+        try (RunHistory reopened = RunHistory.open(file)) {
+            assertIndexes(reopened, RUNS);
+            RunHistory.Run run = reopened.get(12345);
+            assertEquals(12345L, run.seed);
+            assertEquals(1 + 12345 % 7, run.level);
+            assertEquals(12_345_000L, run.durationMillis);
+            assertEquals(difficultyOf(12345), run.difficulty);
+            assertEquals(1_700_000_000_000L + 12_345_000L, run.endedAtMillis);
+        }
+    }
+
+    @Test
+    public void averagesTrackAllAndRecentRuns() throws IOException {
+        try (RunHistory history = RunHistory.open(folder.newFile("runs.bin"))) {
+            assertEquals(-1, history.getBestScore(null));
+            assertEquals(0f, history.getRecentAverageScore(null), 0f);
+            for (int i = 1; i <= 100; i++) {
+                history.append(i, 1, 0, Difficulty.EASY, 0, 0);
+            }
+            history.append(1000, 1, 0, Difficulty.HARD, 0, 0);
+
+            assertEquals(50.5f, history.getAverageScore(Difficulty.EASY), 1e-4f);
+            assertEquals(90.5f, history.getRecentAverageScore(Difficulty.EASY), 1e-4f); // 81〜100
+            assertEquals(1000f, history.getRecentAverageScore(Difficulty.HARD), 0f);
+            assertEquals(0, history.getRunCount(Difficulty.NORMAL));
+            assertEquals(101, history.getRunCount(null));
+            assertEquals(1000, history.getBestScore(null));
+        }
+    }
+
+    @Test
+    public void unrelatedFileIsRejected() throws IOException {
+        File file = folder.newFile("other.bin");
+        java.nio.file.Files.write(file.toPath(), new byte[64]);
+        try {
+            RunHistory.open(file).close();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // 形式が正しくないファイルは開かない
+        }
+    }
+}
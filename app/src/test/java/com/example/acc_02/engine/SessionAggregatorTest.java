@@ -0,0 +1,96 @@
+package com.example.acc_02.engine;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * SessionAggregator の1ゲーム分の集計と、AnalyticsPipeline から LocalAnalyticsBackend への送信のテスト。
+ */
+public class SessionAggregatorTest {
+
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    @Test
+    public void aggregatesOneSummaryPerGame() throws InterruptedException {
+        LocalAnalyticsBackend backend = new LocalAnalyticsBackend();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AnalyticsPipeline pipeline = new AnalyticsPipeline(executor, backend);
+        SessionAggregator session = new SessionAggregator(FRAME_NANOS * 3 / 2);
+
+        session.begin("hard", 5, 1_000L);
+        // 1秒目に3個、2秒目に5個（同じフレームの2個を含む）、3秒目に1個
+        session.onScore(5, 100);
+        session.onScore(10, 900);
+        session.onScore(15, 1_200);
+        session.onScore(10, 1_500);
+        session.onScore(5, 2_100);
+        session.onLevelReached(2);
+        session.onLevelReached(3);
+        session.onPause();
+        session.onPause();
+        for (int i = 0; i < 97; i++) session.onFrame(FRAME_NANOS);
+        for (int i = 0; i < 3; i++) session.onFrame(FRAME_NANOS * 3);
+
+        pipeline.log(session.finish(45, 3_000, 9_000L));
+        assertFalse(session.isActive());
+        assertNull(session.finish(45, 3_000, 9_000L)); // 2回目は送らない
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        List<AnalyticsEvent> events = backend.getEvents();
+        assertEquals(1, events.size());
+        assertEquals(SessionAggregator.EVENT_NAME, events.get(0).getName());
+        Map<String, Object> params = events.get(0).getParams();
+        assertEquals("hard", params.get(SessionAggregator.PARAM_LEVEL));
+        assertEquals(45L, params.get(SessionAggregator.PARAM_SCORE));
+        assertEquals(3L, params.get(SessionAggregator.PARAM_VALUE));
+        assertEquals(1_000L, params.get(SessionAggregator.PARAM_START_TIME));
+        assertEquals(9_000L, params.get(SessionAggregator.PARAM_END_TIME));
+        assertEquals(3L, params.get(SessionAggregator.PARAM_MAX_LEVEL));
+        assertEquals(9L, params.get(SessionAggregator.PARAM_DODGES));
+        assertEquals(3.0, (Double) params.get(SessionAggregator.PARAM_DODGES_PER_SEC), 0.001);
+        assertEquals(5L, params.get(SessionAggregator.PARAM_PEAK_DODGES_PER_SEC));
+        assertEquals(2L, params.get(SessionAggregator.PARAM_PAUSES));
+        assertEquals(100L, params.get(SessionAggregator.PARAM_FRAMES));
+        assertEquals(3L, params.get(SessionAggregator.PARAM_SLOW_FRAMES));
+        assertEquals(16.7, (Double) params.get(SessionAggregator.PARAM_FRAME_P50_MS), 16.7 * 0.07);
+        assertEquals(50.0, (Double) params.get(SessionAggregator.PARAM_FRAME_MAX_MS), 50.0 * 0.07);
+    }
+
+    @Test
+    public void recordsAreIgnoredOutsideSession() {
+        SessionAggregator session = new SessionAggregator(FRAME_NANOS);
+        session.onScore(10, 0);
+        session.onPause();
+        session.onFrame(FRAME_NANOS);
+        assertNull(session.finish(0, 0, 0));
+
+        session.begin("easy", 1, 0);
+        AnalyticsEvent event = session.finish(0, 0, 0);
+        assertEquals(0L, event.getParams().get(SessionAggregator.PARAM_DODGES));
+        assertEquals(0L, event.getParams().get(SessionAggregator.PARAM_PAUSES));
+        assertEquals(0.0, (Double) event.getParams().get(SessionAggregator.PARAM_DODGES_PER_SEC), 0.0);
+    }
+
+    @Test
+    public void backendFailureDoesNotStopPipeline() {
+        LocalAnalyticsBackend local = new LocalAnalyticsBackend();
+        AnalyticsPipeline pipeline = new AnalyticsPipeline(Runnable::run, event -> {
+            if (event.getName().equals("bad")) throw new IllegalStateException();
+            local.send(event);
+        });
+        pipeline.log(new AnalyticsEvent("bad"));
+        pipeline.log(new AnalyticsEvent("good").put("k", "v"));
+        assertEquals(1, pipeline.getFailedEvents());
+        assertEquals(1, local.getEvents().size());
+        assertEquals("v", local.getEvents().get(0).getParams().get("k"));
+    }
+}
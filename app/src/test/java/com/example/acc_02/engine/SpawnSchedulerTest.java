@@ -0,0 +1,61 @@
+package com.example.acc_02.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SpawnScheduler の生成予定（頻度、最小間隔、再現性）のテスト。
+ */
+public class SpawnSchedulerTest {
+
+    private static final int STEPS_PER_SECOND = GameEngine.STEPS_PER_SECOND;
+
+    @Test
+    public void averageRateMatchesAndGapsAreNeverShorterThanMinimum() {
+        SpawnScheduler scheduler = new SpawnScheduler();
+        scheduler.reset(99L);
+        scheduler.startLevel(1, 12.0f, 1);
+
+        final long steps = 600L * STEPS_PER_SECOND;
+        long spawned = 0;
+        long lastSpawnStep = -SpawnScheduler.MIN_GAP_STEPS;
+        for (long step = 1; step <= steps; step++) {
+            float x = scheduler.poll(step);
+            if (x < 0) continue;
+            assertTrue(x >= 0.0f && x < 1.0f);
+            assertTrue(step - lastSpawnStep >= SpawnScheduler.MIN_GAP_STEPS);
+            assertTrue(scheduler.poll(step) < 0); // 1ステップに2個以上は生成しない
+            lastSpawnStep = step;
+            spawned++;
+        }
+        assertEquals(12.0 * 600, spawned, 12.0 * 600 * 0.03);
+    }
+
+    @Test
+    public void timelineDependsOnlyOnSeedAndLevel() {
+        SpawnScheduler a = new SpawnScheduler();
+        SpawnScheduler b = new SpawnScheduler();
+        a.reset(5L);
+        b.reset(5L);
+        // b はレベル1を途中まで進めてからレベル2に入る
+        b.startLevel(1, 6.0f, 1);
+        for (long step = 1; step < 500; step++) b.poll(step);
+
+        a.startLevel(2, 6.6f, 1000);
+        b.startLevel(2, 6.6f, 1000);
+        for (long step = 1000; step < 1000 + 60L * STEPS_PER_SECOND; step++) {
+            assertEquals(a.poll(step), b.poll(step), 0.0f);
+        }
+    }
+
+    @Test
+    public void zeroRateNeverSpawns() {
+        SpawnScheduler scheduler = new SpawnScheduler();
+        scheduler.reset(1L);
+        scheduler.startLevel(1, 0.0f, 1);
+        for (long step = 1; step < 10L * STEPS_PER_SECOND; step++) {
+            assertTrue(scheduler.poll(step) < 0);
+        }
+    }
+}
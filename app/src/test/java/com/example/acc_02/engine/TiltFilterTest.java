@@ -0,0 +1,78 @@
+package com.example.acc_02.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 傾きフィルタ（LowPassFilter / OneEuroFilter）のテスト。
+ */
+public class TiltFilterTest {
+
+    private static final long PERIOD_NANOS = 10_000_000L; // 100Hz
+
+    @Test
+    public void firstSampleIsPassedThrough() {
+        assertEquals(3.0f, new LowPassFilter(5.0f).filter(3.0f, 0), 0.0f);
+        assertEquals(3.0f, new OneEuroFilter(1.0f, 0.05f, 1.0f).filter(3.0f, 0), 0.0f);
+    }
+
+    @Test
+    public void lowPassConvergesToStep() {
+        LowPassFilter filter = new LowPassFilter(5.0f);
+        filter.filter(0.0f, 0);
+        float value = 0;
+        for (int i = 1; i <= 100; i++) { // 1秒
+            value = filter.filter(1.0f, i * PERIOD_NANOS);
+        }
+        assertEquals(1.0f, value, 0.001f);
+    }
+
+    @Test
+    public void lowPassDoesNotDependOnSamplingRate() {
+        LowPassFilter fast = new LowPassFilter(5.0f);
+        LowPassFilter slow = new LowPassFilter(5.0f);
+        fast.filter(0.0f, 0);
+        slow.filter(0.0f, 0);
+        float fastValue = 0;
+        float slowValue = 0;
+        for (int i = 1; i <= 20; i++) {
+            fastValue = fast.filter(1.0f, i * PERIOD_NANOS);
+        }
+        for (int i = 1; i <= 4; i++) {
+            slowValue = slow.filter(1.0f, i * PERIOD_NANOS * 5);
+        }
+        // 同じ0.2秒後の値がおおむね一致する
+        assertEquals(fastValue, slowValue, 0.1f);
+    }
+
+    @Test
+    public void oneEuroSmoothsJitterMoreThanFastMotion() {
+        OneEuroFilter filter = new OneEuroFilter(1.0f, 0.05f, 1.0f);
+        // 静止中の小さな揺れはほぼ取り除かれる（最初の1秒は収束待ち）
+        float maxJitter = 0;
+        for (int i = 0; i < 200; i++) {
+            float noise = (i % 2 == 0) ? 0.2f : -0.2f;
+            float value = filter.filter(noise, i * PERIOD_NANOS);
+            if (i >= 100) maxJitter = Math.max(maxJitter, Math.abs(value));
+        }
+        assertTrue(maxJitter < 0.05f);
+
+        // 大きく速い傾きにはすぐ追従する
+        filter.reset();
+        filter.filter(0.0f, 0);
+        float value = 0;
+        for (int i = 1; i <= 10; i++) { // 0.1秒
+            value = filter.filter(8.0f, i * PERIOD_NANOS);
+        }
+        assertTrue(value > 6.0f);
+    }
+
+    @Test
+    public void resetForgetsPreviousValue() {
+        LowPassFilter filter = new LowPassFilter(5.0f);
+        filter.filter(5.0f, 0);
+        filter.reset();
+        assertEquals(-2.0f, filter.filter(-2.0f, PERIOD_NANOS), 0.0f);
+    }
+}
@@ -0,0 +1,41 @@
+// ゲームエンジン（app の com.example.acc_02.engine パッケージ）のJMHベンチマーク。
+// エンジンはAndroidに依存しないため、app のソースをそのまま通常のJVMでコンパイルして計測する。
+//
+//   ./gradlew :benchmark:jmh
+//
+// 結果は benchmark/build/results/jmh/results.json に JSON で出力される。
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include("com/example/acc_02/engine/**")
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    benchmarkMode.set(listOf("avgt"))
+    timeUnit.set("ns")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // 割り当てレート（gc.alloc.rate / gc.alloc.rate.norm）も同時に記録する
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
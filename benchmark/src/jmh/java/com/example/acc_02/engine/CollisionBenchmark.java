@@ -0,0 +1,42 @@
+package com.example.acc_02.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 衝突判定の方式ごとの1フレームあたりの処理時間を比較する。
+ *
+ * 雨粒は毎フレーム移動させ（画面外に出た分を取り除き、上端に補充する実際の状況に合わせる）、
+ * 当たり判定矩形はゲームと同じくプレイヤー画像を縮小したものを使う。
+ */
+@State(Scope.Thread)
+public class CollisionBenchmark {
+
+    private static final float COLLISION_SIZE = EngineState.PLAYER_SIZE * 0.6f;
+
+    @Param({"linear", "ordered"})
+    public String strategy;
+
+    private CollisionStrategy collider;
+    private float left;
+    private float top;
+
+    @Setup
+    public void setUp(EngineState state) {
+        collider = CollisionStrategy.create(strategy);
+        // 雨粒が届かない右端の外側（EngineState と同じプレイヤー位置）
+        left = EngineState.FIELD_WIDTH + (EngineState.PLAYER_SIZE - COLLISION_SIZE) / 2;
+        top = EngineState.FIELD_HEIGHT - EngineState.PLAYER_SIZE * 1.5f
+                + (EngineState.PLAYER_SIZE - COLLISION_SIZE) / 2;
+    }
+
+    @Benchmark
+    public int findCollision(EngineState state) {
+        state.engine.moveRaindrops();
+        state.refill();
+        return collider.findCollision(state.raindrops, left, top, COLLISION_SIZE, COLLISION_SIZE);
+    }
+}
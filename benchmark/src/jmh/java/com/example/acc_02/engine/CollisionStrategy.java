@@ -0,0 +1,23 @@
+package com.example.acc_02.engine;
+
+/**
+ * ベンチマークで比較する衝突判定の方式。
+ */
+interface CollisionStrategy {
+
+    /**
+     * @return 衝突した雨粒のインデックス。衝突なしの場合は -1
+     */
+    int findCollision(RaindropPool pool, float left, float top, float width, float height);
+
+    static CollisionStrategy create(String name) {
+        switch (name) {
+            case "linear":
+                return new LinearCollider();
+            case "ordered":
+                return new RaindropCollider()::findCollision;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+}
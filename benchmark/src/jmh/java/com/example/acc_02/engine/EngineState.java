@@ -0,0 +1,60 @@
+package com.example.acc_02.engine;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 指定した数の雨粒が常に画面上にある状態のエンジン。
+ *
+ * 雨粒はゲームと同じ並び（添字の昇順に下から上）で画面全体に均等に配置し、
+ * 画面外に出て削除された分は上端に補充して雨粒の数を一定に保つ。
+ * プレイヤーは雨粒が届かない右端の外側に置き、衝突判定は最後まで走るがゲームオーバーにはならない。
+ */
+@State(Scope.Thread)
+public class EngineState {
+
+    static final float FIELD_WIDTH = 1080;
+    static final float FIELD_HEIGHT = 2000;
+    static final float PLAYER_SIZE = 200;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int dropCount;
+
+    GameEngine engine;
+    RaindropPool raindrops;
+    private final GameRandom random = new GameRandom(12345L);
+
+    @Setup
+    public void setUp() {
+        // 補充前に発生フェーズで1個増えても溢れないよう、少し余裕を持たせる
+        engine = new GameEngine(GameClock.SYSTEM, 1L, dropCount + 64);
+        engine.startGame(5, 1, 1L);
+        engine.setFieldSize(FIELD_WIDTH, FIELD_HEIGHT);
+        engine.setPlayerBounds(FIELD_WIDTH, FIELD_HEIGHT - PLAYER_SIZE * 1.5f, PLAYER_SIZE, PLAYER_SIZE);
+        raindrops = engine.getRaindrops();
+
+        for (int k = 0; k < dropCount; k++) {
+            addRaindrop(FIELD_HEIGHT * (dropCount - k) / (dropCount + 1));
+        }
+    }
+
+    /**
+     * 雨粒の数を dropCount に戻す。
+     * 画面外に出て削除された分は画面上端に補充し、発生フェーズで増えた分は末尾から取り除く。
+     */
+    void refill() {
+        while (raindrops.size() < dropCount) {
+            addRaindrop(0);
+        }
+        while (raindrops.size() > dropCount) {
+            raindrops.removeAt(raindrops.size() - 1);
+        }
+    }
+
+    private void addRaindrop(float y) {
+        float x = random.nextInt((int) FIELD_WIDTH - GameEngine.RAINDROP_SIZE);
+        raindrops.add(x, y, GameEngine.RAINDROP_SIZE, GameEngine.RAINDROP_SIZE);
+    }
+}
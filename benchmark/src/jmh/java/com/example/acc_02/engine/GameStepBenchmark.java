@@ -0,0 +1,74 @@
+package com.example.acc_02.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 1フレーム（固定ステップ1回）あたりの処理時間と割り当て量を、フェーズごとに計測する。
+ *
+ * レベルが上がると速度と発生頻度が変わり計測条件がずれるため、
+ * frame() はレベルタイマー以外のフェーズを実行し、レベルタイマーは単独で計測する。
+ */
+public class GameStepBenchmark {
+
+    /** 生成・移動・衝突判定をまとめた1フレーム分の処理 */
+    @Benchmark
+    public boolean frame(EngineState state) {
+        GameEngine engine = state.engine;
+        engine.advanceStepCount(); // 生成予定はステップ数で決まるため、ゲームと同じく1つ進める
+        engine.spawnRaindrop();
+        engine.moveRaindrops();
+        engine.checkCollisions();
+        state.refill();
+        return engine.isGameOver();
+    }
+
+    @Benchmark
+    public int moveRaindrops(EngineState state) {
+        state.engine.moveRaindrops();
+        state.refill();
+        return state.engine.getScore();
+    }
+
+    /** 雨粒は動かさず、衝突判定（範囲の二分探索と詳細判定）だけを計測する */
+    @Benchmark
+    public boolean checkCollisions(EngineState state) {
+        state.engine.checkCollisions();
+        return state.engine.isGameOver();
+    }
+
+    @Benchmark
+    public int spawnRaindrop(EngineState state) {
+        state.engine.advanceStepCount();
+        state.engine.spawnRaindrop();
+        state.refill();
+        return state.raindrops.size();
+    }
+
+    /**
+     * レベルタイマーだけを進めるエンジン。雨粒は持たず、計測の区切りごとにレベル1からやり直す。
+     */
+    @State(Scope.Thread)
+    public static class LevelTimerState {
+        final GameEngine engine = new GameEngine(GameClock.SYSTEM, 1L);
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            engine.startGame(5, 1, 1L);
+        }
+    }
+
+    /**
+     * ゲームと同じく1回ごとにステップ数を1つ進めるため、レベル間隔ごとにレベルアップ（難易度の更新と
+     * 生成予定の作り直し）が実行され、その分を含めた1ステップあたりの平均になる。
+     */
+    @Benchmark
+    public int updateLevelTimer(LevelTimerState state) {
+        state.engine.advanceStepCount();
+        state.engine.updateLevelTimer();
+        return state.engine.getLevel();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.acc_02.engine;
+
+/**
+ * 比較用の基準実装。ブロードフェーズを使わず、全ての雨粒をスイープ判定する。
+ */
+class LinearCollider implements CollisionStrategy {
+
+    @Override
+    public int findCollision(RaindropPool pool, float left, float top, float width, float height) {
+        final float right = left + width;
+        final float bottom = top + height;
+        final float[] xs = pool.x;
+        final float[] ys = pool.y;
+        final float[] prevYs = pool.prevY;
+        final float[] ws = pool.w;
+        final float[] hs = pool.h;
+
+        for (int i = 0, n = pool.size(); i < n; i++) {
+            float sweepTop = Math.min(prevYs[i], ys[i]);
+            float sweepBottom = Math.max(prevYs[i], ys[i]) + hs[i];
+            if (left < xs[i] + ws[i] &&
+                    right > xs[i] &&
+                    top < sweepBottom &&
+                    bottom > sweepTop) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
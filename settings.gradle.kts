@@ -15,4 +15,5 @@ dependencyResolutionManagement {
 }
 
 rootProject.name = "acc_02"
-include(":app")
\ No newline at end of file
+include(":app")
+include(":benchmark")
\ No newline at end of file